@@ -0,0 +1,49 @@
+package com.hypixel.hytale.logger;
+
+/**
+ * Benchmark stand-in for the server logger. Info is dropped so it does not dominate timings,
+ * warnings and errors go to stderr so broken runs stay visible.
+ */
+public class HytaleLogger {
+
+    private static final Api DISCARD = new Api(false);
+    private static final Api STDERR = new Api(true);
+
+    public static HytaleLogger forEnclosingClass() {
+        return new HytaleLogger();
+    }
+
+    public Api atInfo() {
+        return DISCARD;
+    }
+
+    public Api atWarning() {
+        return STDERR;
+    }
+
+    public Api atSevere() {
+        return STDERR;
+    }
+
+    public static final class Api {
+
+        private final boolean print;
+
+        private Api(boolean print) {
+            this.print = print;
+        }
+
+        public Api withCause(Throwable cause) {
+            if (print) {
+                cause.printStackTrace();
+            }
+            return this;
+        }
+
+        public void log(String message) {
+            if (print) {
+                System.err.println(message);
+            }
+        }
+    }
+}
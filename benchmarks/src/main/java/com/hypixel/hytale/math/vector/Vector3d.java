@@ -0,0 +1,20 @@
+package com.hypixel.hytale.math.vector;
+
+/**
+ * Benchmark stand-in for the server vector type, with the same public fields.
+ */
+public class Vector3d {
+
+    public double x;
+    public double y;
+    public double z;
+
+    public Vector3d() {
+    }
+
+    public Vector3d(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+}
@@ -0,0 +1,93 @@
+package dev.hygallery.bench;
+
+import com.google.gson.stream.JsonWriter;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.data.DataHandler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Generates deterministic home data sets and data folders for the benchmarks.
+ */
+final class BenchData {
+
+    static final int HOMES_PER_PLAYER = 5;
+    static final String[] WORLDS = {"default", "nether", "creative"};
+
+    private BenchData() {
+    }
+
+    /**
+     * @return players in a data set, each with {@link #HOMES_PER_PLAYER} homes
+     */
+    static int players(int homes) {
+        return Math.max(1, homes / HOMES_PER_PLAYER);
+    }
+
+    static String uuid(int player) {
+        return new UUID(0x4F70656E486F6D65L, player).toString();
+    }
+
+    static String homeName(int home) {
+        return home == 0 ? "home" : "home" + home;
+    }
+
+    /**
+     * Create a data folder holding a homeData.json with the given number of homes and a config.json
+     * selecting the storage. Write-behind is on with a long interval so the flusher stays out of measurements.
+     */
+    static File createDataFolder(String storage, int homes) throws IOException {
+        File folder = Files.createTempDirectory("openhomes-bench").toFile();
+        Files.writeString(new File(folder, "config.json").toPath(),
+                "{\"storage\":\"" + storage + "\",\"writeBehind\":true,\"flushIntervalSeconds\":3600}");
+        writeSnapshot(new File(folder, "homeData.json"), homes);
+        return folder;
+    }
+
+    /**
+     * Open a handler on the folder, which also migrates homeData.json for non-JSON storages.
+     */
+    static DataHandler open(File folder) {
+        return new DataHandler(PluginConfig.load(folder), folder);
+    }
+
+    static void writeSnapshot(File target, int homes) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        int players = players(homes);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(target), StandardCharsets.UTF_8)))) {
+            writer.beginObject().name("users").beginObject();
+            for (int player = 0; player < players; player++) {
+                writer.name(uuid(player)).beginObject();
+                for (int home = 0; home < HOMES_PER_PLAYER; home++) {
+                    writer.name(homeName(home)).beginArray()
+                            .value(random.nextInt(-30000, 30000) + 0.5)
+                            .value(random.nextInt(0, 320))
+                            .value(random.nextInt(-30000, 30000) + 0.5)
+                            .value(WORLDS[random.nextInt(WORLDS.length)])
+                            .endArray();
+                }
+                writer.endObject();
+            }
+            writer.endObject().endObject();
+        }
+    }
+
+    static void delete(File folder) throws IOException {
+        if (folder == null || !folder.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
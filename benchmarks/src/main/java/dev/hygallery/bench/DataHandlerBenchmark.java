@@ -0,0 +1,102 @@
+package dev.hygallery.bench;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation throughput and latency of the DataHandler API against a loaded store.
+ * Run with -prof gc for the allocation rate per operation (gc.alloc.rate.norm).
+ * <p>
+ * Players are picked at random so lookups miss the CPU caches the way they do on a busy server.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DataHandlerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int homes;
+
+    @Param({"json"})
+    public String storage;
+
+    private File folder;
+    private DataHandler dataHandler;
+    private String[] uuids;
+    private Location location;
+
+    @State(Scope.Thread)
+    public static class Picker {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int player(int players) {
+            return random.nextInt(players);
+        }
+
+        String existingHome() {
+            return BenchData.homeName(random.nextInt(BenchData.HOMES_PER_PLAYER));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchData.createDataFolder(storage, homes);
+        dataHandler = BenchData.open(folder);
+
+        uuids = new String[BenchData.players(homes)];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = BenchData.uuid(i);
+        }
+        location = new Location(new Vector3d(128.5, 64, -32.5), BenchData.WORLDS[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataHandler.shutdown();
+        BenchData.delete(folder);
+    }
+
+    private String randomPlayer(Picker picker) {
+        return uuids[picker.player(uuids.length)];
+    }
+
+    @Benchmark
+    public Location getHome(Picker picker) {
+        return dataHandler.getHome(randomPlayer(picker), picker.existingHome());
+    }
+
+    @Benchmark
+    public Set<String> getHomeNames(Picker picker) {
+        return dataHandler.getHomeNames(randomPlayer(picker));
+    }
+
+    /**
+     * Overwrites a sixth home, so the store keeps its size across iterations.
+     */
+    @Benchmark
+    public boolean setHome(Picker picker) {
+        return dataHandler.setHome(randomPlayer(picker), "bench", location);
+    }
+
+    /**
+     * Deleting needs a home to delete, so each operation sets one first.
+     * The delete cost is this minus {@link #setHome}.
+     */
+    @Benchmark
+    public boolean setThenDeleteHome(Picker picker) {
+        String uuid = randomPlayer(picker);
+        dataHandler.setHome(uuid, "bench", location);
+        return dataHandler.deleteHome(uuid, "bench");
+    }
+}
@@ -0,0 +1,280 @@
+package dev.hygallery.bench;
+
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Soak test for the home commands without a server. Every simulated player is a virtual thread that
+ * runs a weighted mix of /home, /sethome, /delhome and /lsh with a random think time in between,
+ * against a real DataHandler and a handful of {@link SimWorld} threads. Prints throughput and
+ * p50/p99/p999 latency per command, then how busy each world thread was.
+ * <p>
+ * Players wait for each command before thinking about the next one, so a stalled store slows the
+ * offered load down instead of queueing it; watch ops/s as well as the percentiles.
+ * <p>
+ * The commands are {@link SimCommand} copies of the storage and world thread path only, so the
+ * numbers leave out teleport warmup and cooldown, the TeleportScheduler, the ChunkPrefetcher and
+ * owner:home lookups of public homes. The simulated /delhome also skips the loading check the
+ * real command makes through HomeArgs.ready. Keep SimCommand in step when those commands change.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar dev.hygallery.bench.LoadSimulator \
+ *     players=5000 worlds=4 storage=sharded seconds=60 mix=home:60,sethome:15,delhome:5,lsh:20
+ * </pre>
+ */
+public final class LoadSimulator {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("players", "2000");
+        DEFAULTS.put("worlds", "3");
+        DEFAULTS.put("storage", "json");
+        // Homes in the store before the run, 0 for five per simulated player
+        DEFAULTS.put("homes", "0");
+        DEFAULTS.put("seconds", "30");
+        DEFAULTS.put("warmup", "5");
+        // Mean pause between a player's commands
+        DEFAULTS.put("think", "50");
+        DEFAULTS.put("flush", "30");
+        DEFAULTS.put("mix", "home:60,sethome:15,delhome:5,lsh:20");
+    }
+
+    private final Map<String, String> options;
+    private final SimCommand[] mix;
+    private final int[] cumulativeWeights;
+    private final Map<String, SimWorld> worlds = new LinkedHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private volatile Map<SimCommand, LatencyHistogram> latencies = newLatencies();
+    private DataHandler dataHandler;
+
+    private LoadSimulator(Map<String, String> options) {
+        this.options = options;
+
+        List<SimCommand> commands = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String entry : options.get("mix").split(",")) {
+            String[] parts = entry.split(":");
+            SimCommand command = SimCommand.byName(parts[0].trim());
+            if (command == null || parts.length != 2) {
+                throw new IllegalArgumentException("bad mix entry '" + entry + "', expected <command>:<weight>");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                total += weight;
+                commands.add(command);
+                weights.add(total);
+            }
+        }
+        if (commands.isEmpty()) {
+            throw new IllegalArgumentException("mix has no command with a positive weight");
+        }
+        mix = commands.toArray(new SimCommand[0]);
+        cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0 || !DEFAULTS.containsKey(arg.substring(0, equals))) {
+                System.err.println("Unknown option '" + arg + "', options with their defaults:");
+                DEFAULTS.forEach((key, value) -> System.err.println("  " + key + "=" + value));
+                System.exit(2);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        new LoadSimulator(options).run();
+    }
+
+    private int option(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private void run() throws Exception {
+        int players = option("players");
+        int homes = option("homes") > 0 ? option("homes") : players * BenchData.HOMES_PER_PLAYER;
+        if (BenchData.players(homes) < players) {
+            throw new IllegalArgumentException("homes=" + homes + " is too few for " + players + " players");
+        }
+        for (int i = 0; i < option("worlds"); i++) {
+            String name = i < BenchData.WORLDS.length ? BenchData.WORLDS[i] : "world" + i;
+            worlds.put(name, new SimWorld(name));
+        }
+        SimWorld[] spawns = worlds.values().toArray(new SimWorld[0]);
+
+        File folder = BenchData.createDataFolder(options.get("storage"), homes);
+        try {
+            // Flush on the normal schedule so saves compete with the commands
+            Files.writeString(new File(folder, "config.json").toPath(), "{\"storage\":\"" + options.get("storage") +
+                    "\",\"writeBehind\":true,\"flushIntervalSeconds\":" + option("flush") + "}");
+            long loadStart = System.nanoTime();
+            dataHandler = BenchData.open(folder);
+            System.out.println("Loaded " + homes + " homes (" + options.get("storage") + ") in " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart) + "ms");
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(option("warmup"));
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(option("seconds"));
+
+            List<Thread> threads = new ArrayList<>(players);
+            for (int player = 0; player < players; player++) {
+                SimContext context = new SimContext(UUID.fromString(BenchData.uuid(player)), spawns[player % spawns.length]);
+                long seed = player;
+                threads.add(Thread.ofVirtual().name("player-" + player).start(() -> play(context, seed, end)));
+            }
+
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(measureFrom - System.nanoTime()));
+            latencies = newLatencies();
+            errors.reset();
+            for (SimWorld world : worlds.values()) {
+                world.reset();
+            }
+            long measuredStart = System.nanoTime();
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long measuredNanos = System.nanoTime() - measuredStart;
+
+            report(players, homes, measuredNanos);
+
+            long shutdownStart = System.nanoTime();
+            dataHandler.shutdown();
+            System.out.println("Shutdown with final save: " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - shutdownStart) + "ms");
+        } finally {
+            for (SimWorld world : worlds.values()) {
+                world.shutdown();
+            }
+            BenchData.delete(folder);
+        }
+    }
+
+    /**
+     * One player's session, on its own virtual thread.
+     */
+    private void play(SimContext context, long seed, long end) {
+        SimPlayer player = new SimPlayer(seed);
+        int think = option("think");
+        // Spread the first commands over one think time so players do not start in lockstep
+        player.pause(think);
+
+        // Put the player into their spawn world before the first command
+        SimWorld spawn = context.getWorld();
+        double x = player.random.nextInt(-1000, 1000) + 0.5;
+        double z = player.random.nextInt(-1000, 1000) + 0.5;
+        spawn.execute(() -> spawn.place(context.getUuid(), x, 64, z));
+
+        while (System.nanoTime() < end) {
+            SimCommand command = player.pick();
+            // A few names beyond the generated ones, so some lookups and deletes miss
+            String homeName = BenchData.homeName(player.random.nextInt(BenchData.HOMES_PER_PLAYER + 2));
+            Map<SimCommand, LatencyHistogram> phase = latencies;
+            long start = System.nanoTime();
+            try {
+                command.run(dataHandler, worlds, context, homeName).join();
+            } catch (CompletionException | IllegalStateException e) {
+                errors.increment();
+            }
+            phase.get(command).recordSince(start);
+            player.pause(think * 2);
+        }
+    }
+
+    private final class SimPlayer {
+        private final SplittableRandom random;
+
+        SimPlayer(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        SimCommand pick() {
+            int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    return mix[i];
+                }
+            }
+            return mix[mix.length - 1];
+        }
+
+        void pause(int maxMillis) {
+            if (maxMillis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(random.nextInt(maxMillis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void report(int players, int homes, long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        System.out.println();
+        System.out.printf("%d players, %d worlds, %d homes, %s storage, %.1fs measured after %ss warmup%n",
+                players, worlds.size(), homes, options.get("storage"), seconds, options.get("warmup"));
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "command", "ops", "ops/s", "p50", "p99", "p999", "max");
+
+        long total = 0;
+        for (Map.Entry<SimCommand, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram latency = entry.getValue();
+            if (latency.getCount() > 0) {
+                printRow(entry.getKey().getCommandName(), latency, seconds);
+                total += latency.getCount();
+            }
+        }
+        System.out.printf("%-8s %10d %10.0f%n", "all", total, total / seconds);
+        System.out.println("errors: " + errors.sum());
+
+        System.out.println();
+        System.out.printf("%-10s %10s %8s %12s %12s %12s%n", "world", "tasks", "busy", "run p99", "wait p99", "wait p999");
+        for (SimWorld world : worlds.values()) {
+            LatencyHistogram runTime = world.getRunTime();
+            LatencyHistogram queueWait = world.getQueueWait();
+            System.out.printf("%-10s %10d %7.1f%% %12s %12s %12s%n", world.getName(), runTime.getCount(),
+                    100.0 * world.getBusyNanos() / measuredNanos,
+                    millis(runTime.getPercentileNanos(0.99)), millis(queueWait.getPercentileNanos(0.99)),
+                    millis(queueWait.getPercentileNanos(0.999)));
+        }
+
+        System.out.println();
+        System.out.println("Plugin metrics (whole run):");
+        for (String line : dataHandler.getMetrics().report()) {
+            System.out.println("  " + line);
+        }
+    }
+
+    private static void printRow(String name, LatencyHistogram latency, double seconds) {
+        System.out.printf("%-8s %10d %10.0f %10s %10s %10s %10s%n", name, latency.getCount(), latency.getCount() / seconds,
+                millis(latency.getPercentileNanos(0.5)), millis(latency.getPercentileNanos(0.99)),
+                millis(latency.getPercentileNanos(0.999)), millis(latency.getMaxNanos()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / 1e6);
+    }
+
+    private static Map<SimCommand, LatencyHistogram> newLatencies() {
+        Map<SimCommand, LatencyHistogram> latencies = new EnumMap<>(SimCommand.class);
+        for (SimCommand command : SimCommand.values()) {
+            latencies.put(command, new LatencyHistogram());
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,136 @@
+package dev.hygallery.bench;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.Location;
+import dev.hygallery.data.PublicHome;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The home commands as the simulator runs them. Each one makes the real command's DataHandler calls
+ * for a player's own homes, on the same kind of thread: /home and /sethome load the player's homes
+ * and then hop onto the world thread, /delhome and /lsh run on the command thread. The stages that
+ * need a server are left out, see {@link LoadSimulator}.
+ */
+enum SimCommand {
+
+    HOME("home") {
+        @Override
+        CompletableFuture<Void> run(DataHandler dataHandler, Map<String, SimWorld> worlds, SimContext context,
+                                    String homeName) {
+            SimWorld world = context.getWorld();
+            return dataHandler.ensureLoaded(context.getUuidString()).thenComposeAsync(ignored -> {
+                Location home = dataHandler.getHome(context.getUuidString(), homeName);
+                if (home == null) {
+                    context.sendMessage("You do not have a home named '" + homeName + "'");
+                    context.sendMessage(didYouMean(dataHandler, context, homeName));
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                Vector3d coords = home.getCoords();
+                if (world.getName().equals(home.getWorldName())) {
+                    world.place(context.getUuid(), coords.x, coords.y, coords.z);
+                    context.sendMessage("Teleported home!");
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                SimWorld target = worlds.get(home.getWorldName());
+                if (target == null) {
+                    context.sendMessage("Error: world '" + home.getWorldName() + "' doesn't exist");
+                    return CompletableFuture.completedFuture(null);
+                }
+                // Leave this world on its thread, join the target on its own, like World.addPlayer
+                world.remove(context.getUuid());
+                return CompletableFuture.runAsync(() -> {
+                    target.place(context.getUuid(), coords.x, coords.y, coords.z);
+                    context.setWorld(target);
+                    context.sendMessage("Changed world to " + target.getName());
+                }, target);
+            }, world);
+        }
+    },
+
+    SETHOME("sethome") {
+        @Override
+        CompletableFuture<Void> run(DataHandler dataHandler, Map<String, SimWorld> worlds, SimContext context,
+                                    String homeName) {
+            SimWorld world = context.getWorld();
+            return dataHandler.ensureLoaded(context.getUuidString()).thenRunAsync(() -> {
+                double[] position = world.position(context.getUuid());
+                if (position == null) {
+                    return;
+                }
+                Location location = new Location(new Vector3d(position[0], position[1], position[2]), world.getName());
+                if (!dataHandler.setHome(context.getUuidString(), homeName, location)) {
+                    context.sendMessage("Error: could not load your homes, try again later");
+                    return;
+                }
+                context.sendMessage("Home '" + homeName + "' Set!");
+            }, world);
+        }
+    },
+
+    DELHOME("delhome") {
+        @Override
+        CompletableFuture<Void> run(DataHandler dataHandler, Map<String, SimWorld> worlds, SimContext context,
+                                    String homeName) {
+            if (dataHandler.deleteHome(context.getUuidString(), homeName)) {
+                context.sendMessage("Successfully deleted home '" + homeName);
+            } else {
+                context.sendMessage("Failed to delete home '" + homeName + "'");
+                context.sendMessage(didYouMean(dataHandler, context, homeName));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    },
+
+    LSH("lsh") {
+        @Override
+        CompletableFuture<Void> run(DataHandler dataHandler, Map<String, SimWorld> worlds, SimContext context,
+                                    String homeName) {
+            Set<String> homes = dataHandler.getHomeNames(context.getUuidString());
+            List<PublicHome> published = dataHandler.getPublicHomes().homesOf(context.getUuid());
+            context.sendMessage("Current homes: " + homes + (published.isEmpty() ? "" : " " + published.size() + " public"));
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    private final String commandName;
+
+    SimCommand(String commandName) {
+        this.commandName = commandName;
+    }
+
+    String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return future completed when the command has finished, including any world thread work
+     */
+    abstract CompletableFuture<Void> run(DataHandler dataHandler, Map<String, SimWorld> worlds, SimContext context,
+                                         String homeName);
+
+    /**
+     * @param name Command name without the slash
+     * @return the command, or null if there is none with that name
+     */
+    static SimCommand byName(String name) {
+        for (SimCommand command : values()) {
+            if (command.commandName.equalsIgnoreCase(name)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private static String didYouMean(DataHandler dataHandler, SimContext context, String homeName) {
+        List<String> suggestions = dataHandler.suggestHomeNames(context.getUuidString(), homeName, 5);
+        return suggestions.isEmpty() ? "List your current homes with /lsh"
+                : "Did you mean: " + String.join(", ", suggestions) + "?";
+    }
+}
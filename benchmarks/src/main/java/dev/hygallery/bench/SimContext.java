@@ -0,0 +1,48 @@
+package dev.hygallery.bench;
+
+import java.util.UUID;
+
+/**
+ * Stand-in for the CommandContext of one player: who sent the command, the world they are in and
+ * where replies go. Replies are counted rather than delivered.
+ */
+final class SimContext {
+
+    private final UUID uuid;
+    private final String uuidString;
+    private volatile SimWorld world;
+    private int messages;
+
+    SimContext(UUID uuid, SimWorld world) {
+        this.uuid = uuid;
+        this.uuidString = uuid.toString();
+        this.world = world;
+    }
+
+    UUID getUuid() {
+        return uuid;
+    }
+
+    String getUuidString() {
+        return uuidString;
+    }
+
+    /**
+     * @return the world the player is in, changed by cross-world /home
+     */
+    SimWorld getWorld() {
+        return world;
+    }
+
+    void setWorld(SimWorld world) {
+        this.world = world;
+    }
+
+    synchronized void sendMessage(String message) {
+        messages++;
+    }
+
+    synchronized int getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.hygallery.bench;
+
+import dev.hygallery.metrics.LatencyHistogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stand-in for a server World: one platform thread that runs every task for the world, and an entity
+ * store holding the position of each player in it. The store is only touched on the world thread,
+ * like the real one. Tasks are timed from submission, so queueing behind other players shows up.
+ */
+final class SimWorld implements Executor {
+
+    private final String name;
+    private final ExecutorService thread;
+    // Entity store stand-in, player position by UUID, world thread only
+    private final Map<UUID, double[]> store = new HashMap<>();
+    private final LongAdder busyNanos = new LongAdder();
+    private volatile LatencyHistogram runTime = new LatencyHistogram();
+    private volatile LatencyHistogram queueWait = new LatencyHistogram();
+
+    SimWorld(String name) {
+        this.name = name;
+        this.thread = Executors.newSingleThreadExecutor(task -> {
+            Thread worldThread = new Thread(task, "WorldThread - " + name);
+            worldThread.setDaemon(true);
+            return worldThread;
+        });
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long submitted = System.nanoTime();
+        thread.execute(() -> {
+            long start = System.nanoTime();
+            queueWait.record(start - submitted);
+            try {
+                task.run();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                runTime.record(elapsed);
+                busyNanos.add(elapsed);
+            }
+        });
+    }
+
+    /**
+     * @return the player's position, world thread only
+     */
+    double[] position(UUID player) {
+        return store.get(player);
+    }
+
+    /**
+     * Add or move a player, world thread only.
+     */
+    void place(UUID player, double x, double y, double z) {
+        store.put(player, new double[]{x, y, z});
+    }
+
+    /**
+     * Take a player out of the world, world thread only.
+     */
+    void remove(UUID player) {
+        store.remove(player);
+    }
+
+    LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Forget the warmup, the measured phase starts from zero.
+     */
+    void reset() {
+        runTime = new LatencyHistogram();
+        queueWait = new LatencyHistogram();
+        busyNanos.reset();
+    }
+
+    void shutdown() throws InterruptedException {
+        thread.shutdown();
+        thread.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,71 @@
+package dev.hygallery.bench;
+
+import dev.hygallery.data.DataHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load the whole store at startup and to write it back with a full save.
+ * <p>
+ * The data folder is prepared once per trial, including any migration to the chosen storage,
+ * so each load measures a normal restart. Pass -p storage=journal,binary,sharded,sqlite to compare backends;
+ * the lazy ones only map or open their files on load and save just the players in memory.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int homes;
+
+    @Param({"json"})
+    public String storage;
+
+    private File folder;
+    private DataHandler loaded;
+    private DataHandler opened;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchData.createDataFolder(storage, homes);
+        // First open migrates homeData.json into the chosen storage
+        BenchData.open(folder).shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void openForSave() {
+        loaded = BenchData.open(folder);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeAll() {
+        loaded.shutdown();
+        if (opened != null) {
+            opened.shutdown();
+            opened = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.delete(folder);
+    }
+
+    @Benchmark
+    public int loadHomes() {
+        opened = BenchData.open(folder);
+        return opened.getCachedPlayerCount();
+    }
+
+    @Benchmark
+    public boolean saveHomes() {
+        return loaded.flush();
+    }
+}
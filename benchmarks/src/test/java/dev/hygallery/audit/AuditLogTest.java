@@ -0,0 +1,126 @@
+package dev.hygallery.audit;
+
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private static final UUID PLAYER = new UUID(1, 2);
+
+    @TempDir
+    File folder;
+
+    private final HomeMetrics metrics = new HomeMetrics();
+
+    private AuditLog open(String config) throws IOException {
+        Files.writeString(new File(folder, "config.json").toPath(), config);
+        return new AuditLog(PluginConfig.load(folder), new File(folder, "audit"), metrics);
+    }
+
+    private List<String> lines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        File[] files = new File(folder, "audit").listFiles();
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                // Rotated files sort before audit.ndjson, which holds the newest lines
+                lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    private void awaitLines(int count) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lines().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void ringWrapsAroundWithoutLosingOrder() throws Exception {
+        AuditLog log = open("{\"auditBufferSize\": 64}");
+        int written = 0;
+        // Four turns of the ring, half a buffer at a time so the writer keeps up
+        for (int batch = 0; batch < 8; batch++) {
+            for (int i = 0; i < 32; i++) {
+                assertTrue(log.recordSet(AuditLog.Action.SET, PLAYER, "home" + written, written, 64, 0, "default"));
+                written++;
+            }
+            awaitLines(written);
+        }
+        log.shutdown();
+
+        List<String> lines = lines();
+        assertEquals(256, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(lines.get(i).contains("\"name\":\"home" + i + "\""), lines.get(i));
+        }
+        assertEquals(0, metrics.counter("audit.dropped").sum());
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() throws Exception {
+        AuditLog log = open("{\"auditBufferSize\": 64}");
+        int recorded = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (log.recordDelete(AuditLog.Action.DELETE, PLAYER, "home" + i)) {
+                recorded++;
+            }
+        }
+        log.shutdown();
+
+        assertEquals(10_000 - recorded, metrics.counter("audit.dropped").sum());
+        assertEquals(recorded, lines().size());
+    }
+
+    @Test
+    void escapesNamesAndOmitsPositionOnDelete() throws Exception {
+        AuditLog log = open("{}");
+        log.recordSet(AuditLog.Action.IMPORT, PLAYER, "say \"hi\"\\", 1.5, 2, 3, "wörld");
+        log.recordDelete(AuditLog.Action.AREA_DELETE, PLAYER, "tab\there");
+        log.shutdown();
+
+        List<String> lines = lines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"action\":\"IMPORT\""));
+        assertTrue(lines.get(0).contains("\"name\":\"say \\\"hi\\\"\\\\\""));
+        assertTrue(lines.get(0).contains("\"world\":\"wörld\",\"x\":1.5"));
+        assertTrue(lines.get(1).contains("\"name\":\"tab\\u0009here\""));
+        assertFalse(lines.get(1).contains("\"world\""));
+    }
+
+    @Test
+    void rotationKeepsFilesUnderTheLimit() throws Exception {
+        AuditLog log = open("{\"auditMaxFileBytes\": 65536, \"auditMaxFiles\": 2}");
+        for (int batch = 0; batch < 20; batch++) {
+            for (int i = 0; i < 200; i++) {
+                log.recordSet(AuditLog.Action.SET, PLAYER, "home", i, 64, 0, "default");
+            }
+            // Rotated names carry the time, let them differ
+            Thread.sleep(5);
+        }
+        log.shutdown();
+
+        File[] files = new File(folder, "audit").listFiles();
+        assertNotNull(files);
+        assertTrue(files.length <= 3, files.length + " files");
+        for (File file : files) {
+            assertTrue(file.length() <= 65536, file.getName() + " is " + file.length() + " bytes");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dev.hygallery.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeJournalTest {
+
+    private static final String PLAYER = "6f1d2b0e-6d0e-4c4b-9a0e-2b7f3c1d5e9a";
+
+    @TempDir
+    File folder;
+
+    /**
+     * Replays into a list of "set name world" and "delete name" lines, in order.
+     */
+    private static final class Recorder implements HomeJournal.ReplayTarget {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void set(String uuid, String homeName, double x, double y, double z, String worldName) {
+            records.add("set " + homeName + " " + worldName + " " + x);
+        }
+
+        @Override
+        public void delete(String uuid, String homeName) {
+            records.add("delete " + homeName);
+        }
+    }
+
+    private List<String> replay(File file) throws IOException {
+        Recorder recorder = new Recorder();
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.replay(recorder);
+        }
+        return recorder.records;
+    }
+
+    @Test
+    void replayAppliesRecordsInOrder() throws IOException {
+        File file = new File(folder, "homeData.journal");
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.appendSet(PLAYER, "base", 1, 2, 3, "default");
+            journal.appendDelete(PLAYER, "base");
+            journal.appendSet(PLAYER, "base", 4, 5, 6, "nether");
+            assertTrue(journal.flush());
+        }
+
+        assertEquals(List.of("set base default 1.0", "delete base", "set base nether 4.0"), replay(file));
+    }
+
+    @Test
+    void sizeCountsMultiByteNames() throws IOException {
+        try (HomeJournal journal = new HomeJournal(new File(folder, "homeData.journal"))) {
+            journal.appendDelete(PLAYER, "maison");
+            long ascii = journal.size();
+            journal.appendDelete(PLAYER, "maisón");
+            assertEquals(ascii + 1, journal.size() - ascii);
+            assertTrue(journal.flush());
+            assertEquals(journal.size(), new File(folder, "homeData.journal").length());
+        }
+    }
+
+    @Test
+    void rotatedRecordsReplayBeforeLiveOnes() throws IOException {
+        File file = new File(folder, "homeData.journal");
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.appendSet(PLAYER, "base", 1, 1, 1, "default");
+            journal.rotate();
+            journal.appendSet(PLAYER, "base", 2, 2, 2, "default");
+            assertTrue(journal.flush());
+            assertTrue(journal.hasRotated());
+        }
+
+        assertEquals(List.of("set base default 1.0", "set base default 2.0"), replay(file));
+    }
+
+    @Test
+    void secondRotationKeepsUnfinishedCompactionFirst() throws IOException {
+        File file = new File(folder, "homeData.journal");
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.appendSet(PLAYER, "a", 1, 1, 1, "default");
+            journal.rotate();
+            // The snapshot for the first rotation never reached disk
+            journal.appendSet(PLAYER, "a", 2, 2, 2, "default");
+            journal.rotate();
+            journal.appendSet(PLAYER, "a", 3, 3, 3, "default");
+            assertTrue(journal.flush());
+        }
+
+        assertEquals(List.of("set a default 1.0", "set a default 2.0", "set a default 3.0"), replay(file));
+    }
+
+    @Test
+    void dropRotatedLeavesOnlyLiveRecords() throws IOException {
+        File file = new File(folder, "homeData.journal");
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.appendSet(PLAYER, "old", 1, 1, 1, "default");
+            journal.rotate();
+            journal.dropRotated();
+            journal.appendSet(PLAYER, "new", 2, 2, 2, "default");
+            assertTrue(journal.flush());
+            assertFalse(journal.hasRotated());
+        }
+
+        assertEquals(List.of("set new default 2.0"), replay(file));
+    }
+
+    @Test
+    void tornAndInvalidLinesAreSkipped() throws IOException {
+        File file = new File(folder, "homeData.journal");
+        try (HomeJournal journal = new HomeJournal(file)) {
+            journal.appendSet(PLAYER, "base", 1, 1, 1, "default");
+            assertTrue(journal.flush());
+        }
+        Files.writeString(file.toPath(), "[\"x\",\"" + PLAYER + "\",\"base\"]\n[\"s\",\"" + PLAYER + "\",\"ba",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("set base default 1.0"), replay(file));
+    }
+}
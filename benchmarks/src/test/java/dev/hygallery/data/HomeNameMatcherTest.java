@@ -0,0 +1,70 @@
+package dev.hygallery.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeNameMatcherTest {
+
+    private static PlayerHomes homes(String... names) {
+        PlayerHomes homes = PlayerHomes.EMPTY;
+        for (String name : names) {
+            homes = homes.with(name, 0, 0, 0, 0);
+        }
+        return homes;
+    }
+
+    @Test
+    void completeReturnsSortedPrefixMatchesUpToLimit() {
+        PlayerHomes homes = homes("mine3", "farm", "mine1", "mine2", "tower");
+
+        assertEquals(List.of("mine1", "mine2", "mine3"), HomeNameMatcher.complete(homes, "mi", 10));
+        assertEquals(List.of("mine1", "mine2"), HomeNameMatcher.complete(homes, "mi", 2));
+        assertEquals(List.of(), HomeNameMatcher.complete(homes, "x", 10));
+        assertEquals(List.of("tower"), HomeNameMatcher.complete(homes, "tower", 10));
+    }
+
+    @Test
+    void suggestPutsCompletionsBeforeCloseNames() {
+        PlayerHomes homes = homes("bases", "basement", "vase", "house");
+
+        assertEquals(List.of("basement", "bases", "vase"), HomeNameMatcher.suggest(homes, "base", 5));
+    }
+
+    @Test
+    void suggestOrdersByDistanceAndKeepsTheClosest() {
+        PlayerHomes homes = homes("towaa", "towr", "farm");
+
+        assertEquals(List.of("towr", "towaa"), HomeNameMatcher.suggest(homes, "tower", 5));
+        // The closer name found later replaces the one found first
+        assertEquals(List.of("towr"), HomeNameMatcher.suggest(homes, "tower", 1));
+    }
+
+    @Test
+    void suggestKeepsNameOrderAmongEqualDistances() {
+        PlayerHomes homes = homes("towr", "tover", "towers");
+
+        assertEquals(List.of("towers", "tover", "towr"), HomeNameMatcher.suggest(homes, "tower", 3));
+        assertEquals(List.of("towers", "tover"), HomeNameMatcher.suggest(homes, "tower", 2));
+    }
+
+    @Test
+    void shortInputsOnlyAllowOneEdit() {
+        PlayerHomes homes = homes("cat", "cot", "dog", "cups");
+
+        assertEquals(List.of("cat", "cot"), HomeNameMatcher.suggest(homes, "cut", 5));
+        assertEquals(List.of(), HomeNameMatcher.suggest(homes("farm"), "zzz", 5));
+    }
+
+    @Test
+    void distanceStopsPastTheLimit() {
+        int[] rows = new int[64];
+
+        assertEquals(0, HomeNameMatcher.distance("home", "home", 2, rows));
+        assertEquals(1, HomeNameMatcher.distance("home", "hime", 2, rows));
+        assertEquals(2, HomeNameMatcher.distance("home", "ohme", 2, rows));
+        assertEquals(3, HomeNameMatcher.distance("home", "tower", 2, rows));
+    }
+}
@@ -0,0 +1,113 @@
+package dev.hygallery.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeSpatialIndexTest {
+
+    private static final UUID ALICE = new UUID(1, 1);
+    private static final UUID BOB = new UUID(2, 2);
+
+    private final WorldTable worlds = new WorldTable();
+    private final HomeSpatialIndex index = new HomeSpatialIndex(worlds);
+    private final int world = worlds.idOf("default");
+
+    private static List<String> names(List<IndexedHome> homes) {
+        return homes.stream().map(IndexedHome::getName).toList();
+    }
+
+    @Test
+    void nearReturnsHomesInRadiusClosestFirst() {
+        index.add(world, ALICE, "far", 30, 64, 0);
+        index.add(world, ALICE, "close", 5, 64, 0);
+        index.add(world, BOB, "outside", 40, 64, 40);
+        index.add(worlds.idOf("nether"), BOB, "otherworld", 1, 64, 0);
+
+        List<IndexedHome> found = index.near(world, 0, 0, 32);
+
+        assertEquals(List.of("close", "far"), names(found));
+        assertEquals("default", found.get(0).getWorldName());
+        assertEquals(ALICE, found.get(0).getOwner());
+    }
+
+    @Test
+    void queriesSpanCellsOnBothSidesOfZero() {
+        index.add(world, ALICE, "west", -1, 64, -1);
+        index.add(world, ALICE, "east", 0, 64, 0);
+        index.add(world, ALICE, "edge", -HomeSpatialIndex.CELL_SIZE, 64, HomeSpatialIndex.CELL_SIZE);
+
+        assertEquals(List.of("east", "west"), names(index.near(world, 0, 0, 2)));
+        assertEquals(3, index.within(world, -64, 0, -1, 0, 128, 64).size());
+        assertEquals(List.of("west"), names(index.within(world, -1, 64, -1, -1, 64, -1)));
+        assertEquals(List.of(), index.within(world, -1, 65, -1, 0, 128, 0));
+    }
+
+    @Test
+    void hugeAreaVisitsOccupiedCells() {
+        index.add(world, ALICE, "a", 1_000_000, 64, -1_000_000);
+        index.add(world, BOB, "b", -1_000_000, 64, 1_000_000);
+
+        assertEquals(2, index.within(world, -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE,
+                Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE).size());
+        assertEquals(2, index.near(world, 0, 0, 3_000_000).size());
+    }
+
+    @Test
+    void addingAnIndexedHomeReplacesItsPosition() {
+        index.add(world, ALICE, "base", 10, 64, 10);
+        index.add(world, ALICE, "base", 12, 70, 12);
+
+        assertEquals(1, index.size());
+        IndexedHome home = index.near(world, 10, 10, 5).get(0);
+        assertEquals(12, home.getX());
+        assertEquals(70, home.getY());
+    }
+
+    @Test
+    void removeDropsOnlyThatHome() {
+        for (int i = 0; i < 10; i++) {
+            index.add(world, ALICE, "home" + i, i, 64, i);
+        }
+        index.add(world, BOB, "home0", 0, 64, 0);
+
+        index.remove(world, ALICE, "home0", 0, 0);
+        index.remove(world, ALICE, "missing", 0, 0);
+        index.remove(worlds.idOf("nether"), ALICE, "home1", 1, 1);
+
+        assertEquals(10, index.size());
+        assertEquals(10, index.countIn(world));
+        assertEquals(Set.of(ALICE, BOB), index.ownersIn(world));
+        assertEquals(BOB, index.within(world, 0, 0, 0, 0, 100, 0).get(0).getOwner());
+    }
+
+    @Test
+    void removeOwnersEmptiesTheirCellsAndWorlds() {
+        int nether = worlds.idOf("nether");
+        index.add(world, ALICE, "a", 0, 64, 0);
+        index.add(world, BOB, "b", 1, 64, 1);
+        index.add(nether, ALICE, "c", 500, 64, 500);
+
+        index.removeOwners(Set.of(ALICE));
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.countIn(nether));
+        assertEquals(Set.of(world), index.worldIds());
+        assertEquals(Set.of(BOB), index.ownersIn(world));
+    }
+
+    @Test
+    void addAllIndexesEveryHome() {
+        PlayerHomes homes = PlayerHomes.EMPTY.with("a", 0, 64, 0, world).with("b", 100, 64, 100, world);
+
+        index.addAll(ALICE, homes);
+        index.addAll(ALICE, homes);
+
+        assertEquals(2, index.size());
+        assertEquals(2, index.countIn(world));
+    }
+}
@@ -0,0 +1,105 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerHomesTest {
+
+    private final WorldTable worlds = new WorldTable();
+
+    @Test
+    void withKeepsNamesSortedAndLeavesOriginalUnchanged() {
+        PlayerHomes one = PlayerHomes.EMPTY.with("mine", 1, 2, 3, worlds.idOf("default"));
+        PlayerHomes three = one.with("base", 4, 5, 6, 0).with("tower", 7, 8, 9, 0);
+
+        assertEquals(List.of("base", "mine", "tower"), List.copyOf(three.names()));
+        assertEquals(1, one.size());
+        assertEquals(0, PlayerHomes.EMPTY.size());
+        assertEquals(4, three.x(0));
+        assertEquals(9, three.z(2));
+    }
+
+    @Test
+    void withReplacesExistingHomeInPlace() {
+        int overworld = worlds.idOf("default");
+        int nether = worlds.idOf("nether");
+        PlayerHomes before = PlayerHomes.EMPTY.with("base", 1, 2, 3, overworld).with("mine", 4, 5, 6, overworld);
+        PlayerHomes after = before.with("base", 10, 20, 30, nether);
+
+        assertEquals(2, after.size());
+        assertEquals(10, after.x(after.indexOf("base")));
+        assertEquals(nether, after.worldId(after.indexOf("base")));
+        assertEquals(1, before.x(before.indexOf("base")));
+        assertEquals(overworld, before.worldId(before.indexOf("base")));
+    }
+
+    @Test
+    void withoutRemovesOnlyTheNamedHome() {
+        PlayerHomes homes = PlayerHomes.EMPTY.with("a", 1, 1, 1, 0).with("b", 2, 2, 2, 0).with("c", 3, 3, 3, 0);
+
+        PlayerHomes withoutMiddle = homes.without("b");
+        assertEquals(List.of("a", "c"), List.copyOf(withoutMiddle.names()));
+        assertEquals(3, withoutMiddle.x(1));
+        assertSame(homes, homes.without("missing"));
+        assertSame(PlayerHomes.EMPTY, PlayerHomes.EMPTY.with("a", 1, 1, 1, 0).without("a"));
+    }
+
+    @Test
+    void packingArraysKeepsTheLastDuplicate() {
+        String[] names = {"base", "mine", "base"};
+        double[] coords = {1, 1, 1, 2, 2, 2, 3, 3, 3};
+        int[] worldIds = {0, 0, 1};
+
+        PlayerHomes homes = PlayerHomes.of(names, coords, worldIds, 3);
+
+        assertEquals(2, homes.size());
+        int base = homes.indexOf("base");
+        assertEquals(3, homes.x(base));
+        assertEquals(1, homes.worldId(base));
+    }
+
+    @Test
+    void packingMapRoundTrips() {
+        Map<String, Location> map = Map.of(
+                "b", new Location(new Vector3d(1, 2, 3), "default"),
+                "a", new Location(new Vector3d(-4, 5, -6), "nether"));
+
+        Map<String, Location> unpacked = PlayerHomes.of(map, worlds).toMap(worlds);
+
+        assertEquals(2, unpacked.size());
+        assertEquals("nether", unpacked.get("a").getWorldName());
+        assertEquals(-6, unpacked.get("a").getCoords().z);
+        assertSame(PlayerHomes.EMPTY, PlayerHomes.of(Map.of(), worlds));
+    }
+
+    @Test
+    void replaceWorldMovesOrDropsHomes() {
+        PlayerHomes homes = PlayerHomes.EMPTY.with("a", 1, 1, 1, 0).with("b", 2, 2, 2, 1).with("c", 3, 3, 3, 0);
+
+        PlayerHomes moved = homes.replaceWorld(0, 2);
+        assertEquals(2, moved.worldId(0));
+        assertEquals(1, moved.worldId(1));
+        assertEquals(2, moved.worldId(2));
+
+        PlayerHomes dropped = homes.replaceWorld(0, -1);
+        assertEquals(List.of("b"), List.copyOf(dropped.names()));
+        assertSame(PlayerHomes.EMPTY, dropped.replaceWorld(1, -1));
+        assertSame(homes, homes.replaceWorld(5, -1));
+    }
+
+    @Test
+    void prefixStartFindsTheRunOfMatchingNames() {
+        PlayerHomes homes = PlayerHomes.EMPTY.with("farm", 0, 0, 0, 0).with("mine", 0, 0, 0, 0)
+                .with("mine2", 0, 0, 0, 0).with("tower", 0, 0, 0, 0);
+
+        assertEquals(1, homes.prefixStart("min"));
+        assertEquals(1, homes.prefixStart("mine"));
+        assertEquals(4, homes.prefixStart("zzz"));
+        assertEquals(0, homes.prefixStart(""));
+    }
+}
@@ -0,0 +1,73 @@
+package dev.hygallery.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CooldownMapTest {
+
+    private static UUID player(int i) {
+        return new UUID(i * 0x9E3779B97F4A7C15L, i);
+    }
+
+    @Test
+    void putReplacesAndGetFallsBackToAbsent() {
+        CooldownMap map = new CooldownMap();
+        map.put(player(1), 100);
+        map.put(player(1), 200);
+
+        assertEquals(200, map.get(player(1), -1));
+        assertEquals(-1, map.get(player(2), -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeOnlyMatchesTheExpectedValue() {
+        CooldownMap map = new CooldownMap();
+        map.put(player(1), 100);
+        map.put(player(1), 200);
+
+        assertFalse(map.remove(player(1), 100));
+        assertEquals(200, map.get(player(1), -1));
+        assertTrue(map.remove(player(1), 200));
+        assertFalse(map.remove(player(1), 200));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        CooldownMap map = new CooldownMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(player(i), i);
+        }
+
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(player(i), -1));
+        }
+    }
+
+    @Test
+    void removalKeepsCollidingEntriesReachable() {
+        CooldownMap map = new CooldownMap();
+        // Enough players that probe runs collide and wrap past the end of the table
+        for (int i = 0; i < 31; i++) {
+            map.put(player(i), i);
+        }
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 31; i += 2) {
+                assertTrue(map.remove(player(i), i));
+            }
+            for (int i = 1; i < 31; i += 2) {
+                assertEquals(i, map.get(player(i), -1));
+            }
+            for (int i = 0; i < 31; i += 2) {
+                assertEquals(-1, map.get(player(i), -1));
+                map.put(player(i), i);
+            }
+        }
+        assertEquals(31, map.size());
+    }
+}
@@ -0,0 +1,67 @@
+package dev.hygallery.world;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+
+    // Four buckets of 5ms, so anything past 20ms needs more than one turn of the wheel
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 4);
+
+    @AfterEach
+    void stop() {
+        timer.stop();
+    }
+
+    @Test
+    void tasksRunInDeadlineOrder() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        timer.schedule(() -> { order.add(60); done.countDown(); }, 60);
+        timer.schedule(() -> { order.add(10); done.countDown(); }, 10);
+        timer.schedule(() -> { order.add(35); done.countDown(); }, 35);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(10, 35, 60), order);
+    }
+
+    @Test
+    void delayLongerThanTheWheelIsNotFiredEarly() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timer.schedule(fired::countDown, 100);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+        timer.schedule(() -> ran.set(true), 30).cancel();
+        timer.schedule(later::countDown, 60);
+
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheTimer() throws InterruptedException {
+        CountDownLatch after = new CountDownLatch(1);
+        timer.schedule(() -> {
+            throw new IllegalStateException("expected");
+        }, 0);
+        timer.schedule(after::countDown, 20);
+
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -2,26 +2,68 @@ package dev.hygallery;
 
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import dev.hygallery.commands.BackCommand;
 import dev.hygallery.commands.DelHomeCommand;
+import dev.hygallery.commands.DelHomesInCommand;
+import dev.hygallery.commands.DropWorldHomesCommand;
+import dev.hygallery.commands.ExportHomesCommand;
+import dev.hygallery.commands.HomeBackupCommand;
 import dev.hygallery.commands.HomeCommand;
 import dev.hygallery.commands.HomeListCommand;
+import dev.hygallery.commands.HomeRestoreCommand;
+import dev.hygallery.commands.HomeStatsCommand;
+import dev.hygallery.commands.HomeWorldsCommand;
+import dev.hygallery.commands.HomesNearCommand;
+import dev.hygallery.commands.ImportHomesCommand;
+import dev.hygallery.commands.PublicHomesCommand;
+import dev.hygallery.commands.PublishHomeCommand;
+import dev.hygallery.commands.RenameWorldHomesCommand;
+import dev.hygallery.commands.SaveHomesCommand;
 import dev.hygallery.commands.SetHomeCommand;
+import dev.hygallery.commands.UnpublishHomeCommand;
+import dev.hygallery.config.PluginConfig;
 import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.WorldChangeResult;
+import dev.hygallery.world.ChunkPrefetcher;
+import dev.hygallery.world.TeleportScheduler;
+import dev.hygallery.world.TeleportTimers;
+import dev.hygallery.world.WorldDirectory;
 
 import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 public class HomePlugin extends JavaPlugin {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private final PluginConfig config;
     private final DataHandler dataHandler;
+    private final WorldDirectory worldDirectory = new WorldDirectory();
+    private final ChunkPrefetcher prefetcher;
+    private final TeleportScheduler teleportScheduler;
+    private final TeleportTimers teleportTimers;
     private static HomePlugin instance;
 
     public HomePlugin(@Nonnull JavaPluginInit init) {
         super(init);
 
         try {
-            this.dataHandler = new DataHandler();
+            this.config = PluginConfig.load(new File("plugins/openhomes"));
+            // Homes load in the background, commands answer "still loading" until they are ready
+            this.dataHandler = new DataHandler(config, new File("plugins/openhomes"), config.isBackgroundLoad());
+            dataHandler.getMetrics().gauge("worlds.indexed", worldDirectory::size);
+            this.prefetcher = new ChunkPrefetcher(config, dataHandler.getMetrics());
+            this.teleportScheduler = new TeleportScheduler(config, dataHandler.getMetrics());
+            this.teleportTimers = new TeleportTimers(config, dataHandler.getMetrics());
             instance = this;
             LOGGER.atInfo().log("Home plugin initialized successfully.");
         } catch (Exception e) {
@@ -33,21 +75,85 @@ public class HomePlugin extends JavaPlugin {
     @Override
     protected void setup() {
         try {
-            this.getCommandRegistry().registerCommand(new HomeCommand(getDataHandler()));
-            this.getCommandRegistry().registerCommand(new SetHomeCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new HomeCommand(getDataHandler(), worldDirectory, prefetcher, teleportScheduler, teleportTimers));
+            this.getCommandRegistry().registerCommand(new BackCommand(getDataHandler(), worldDirectory, prefetcher, teleportScheduler, teleportTimers));
+            this.getCommandRegistry().registerCommand(new SetHomeCommand(getDataHandler(), worldDirectory));
             this.getCommandRegistry().registerCommand(new HomeListCommand(getDataHandler()));
             this.getCommandRegistry().registerCommand(new DelHomeCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new SaveHomesCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new ExportHomesCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new ImportHomesCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new HomeStatsCommand(getDataHandler().getMetrics()));
+            this.getCommandRegistry().registerCommand(new HomesNearCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new DelHomesInCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new HomeBackupCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new HomeRestoreCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new HomeWorldsCommand(getDataHandler(), worldDirectory));
+            this.getCommandRegistry().registerCommand(new DropWorldHomesCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new RenameWorldHomesCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new PublishHomeCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new UnpublishHomeCommand(getDataHandler()));
+            this.getCommandRegistry().registerCommand(new PublicHomesCommand(getDataHandler()));
             LOGGER.atInfo().log("Successfully registered home commands");
+
+            // Track online players so their homes are preloaded and only offline players get evicted
+            this.getEventRegistry().register(PlayerConnectEvent.class,
+                    event -> dataHandler.playerJoined(event.getPlayerRef().getUuid().toString(),
+                            event.getPlayerRef().getUsername()));
+            this.getEventRegistry().register(PlayerDisconnectEvent.class,
+                    event -> dataHandler.playerLeft(event.getPlayerRef().getUuid().toString()));
+
+            // Keep the world index current so cross-world /home never scans the universe
+            this.getEventRegistry().registerGlobal(AddWorldEvent.class,
+                    event -> worldDirectory.worldAdded(event.getWorld()));
+            this.getEventRegistry().registerGlobal(RemoveWorldEvent.class,
+                    event -> worldDirectory.worldRemoved(event.getWorld()));
         } catch (Exception e) {
             LOGGER.atSevere().withCause(e).log("FAILED to register commands!");
             throw new RuntimeException("Command registration failed", e);
         }
     }
 
+    @Override
+    protected void start() {
+        if (config.isPurgeMissingWorlds()) {
+            Set<String> existingWorlds = new HashSet<>();
+            for (World world : Universe.get().getWorlds().values()) {
+                existingWorlds.add(world.getName());
+            }
+            // Touches every owner with homes in a missing world, keep it off the server thread
+            dataHandler.runInBackground(() -> {
+                try {
+                    WorldChangeResult result = dataHandler.dropMissingWorldHomes(existingWorlds);
+                    LOGGER.atInfo().log("Startup sweep deleted " + result.getChanged() + " homes in missing worlds, " +
+                            result.getFailedOwners() + " owners could not be loaded");
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.atSevere().withCause(e).log("Startup sweep of missing worlds failed");
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void shutdown() {
+        teleportTimers.shutdown();
+        teleportScheduler.shutdown();
+        dataHandler.shutdown();
+        LOGGER.atInfo().log("Home plugin shut down, pending homes flushed");
+    }
+
+    public PluginConfig getPluginConfig() {
+        return config;
+    }
+
     public DataHandler getDataHandler() {
         return dataHandler;
     }
 
+    public WorldDirectory getWorldDirectory() {
+        return worldDirectory;
+    }
+
     public static HomePlugin getInstance() {
         return instance;
     }
@@ -0,0 +1,379 @@
+package dev.hygallery.audit;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured record of home changes, written to audit/audit.ndjson.
+ * <p>
+ * Recording claims a slot in a preallocated ring buffer and copies the event's fields into it,
+ * without formatting or allocating anything. A background thread turns the slots into NDJSON lines
+ * and rotates the file once it grows past the configured size. When the writer falls a full buffer
+ * behind, new events are dropped and counted rather than making callers wait.
+ */
+public final class AuditLog {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * What happened to a home.
+     */
+    public enum Action {
+        /** A player set a home */
+        SET,
+        /** A player deleted a home */
+        DELETE,
+        /** A bulk import stored a home */
+        IMPORT,
+        /** An admin area delete removed a home */
+        AREA_DELETE,
+        /** Restoring a backup set or removed a home */
+        RESTORE,
+        /** An admin dropped every home in a world */
+        WORLD_DROP,
+        /** An admin moved every home in a world to a new world name */
+        WORLD_RENAME
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private final int mask;
+    // Slot fields, written by the producer that claimed the slot before it is published
+    private final long[] times;
+    private final byte[] actions;
+    private final UUID[] owners;
+    private final String[] names;
+    private final String[] worlds;
+    private final double[] coords;
+    // Sequence number each slot was last published with, -1 until first use
+    private final AtomicLongArray published;
+
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final LongAdder dropped;
+    private long droppedReported;
+
+    private final File folder;
+    private final File currentFile;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private Writer writer;
+    // UTF-8 bytes in the current file
+    private long fileBytes;
+    // Earliest time to retry a failed open or rotation
+    private long retryAt;
+
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    public AuditLog(PluginConfig config, File folder, HomeMetrics metrics) {
+        int capacity = Integer.highestOneBit(config.getAuditBufferSize());
+        this.mask = capacity - 1;
+        this.times = new long[capacity];
+        this.actions = new byte[capacity];
+        this.owners = new UUID[capacity];
+        this.names = new String[capacity];
+        this.worlds = new String[capacity];
+        this.coords = new double[capacity * 3];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        this.folder = folder;
+        this.currentFile = new File(folder, "audit.ndjson");
+        this.maxFileBytes = config.getAuditMaxFileBytes();
+        this.maxFiles = config.getAuditMaxFiles();
+        this.dropped = metrics.counter("audit.dropped");
+        metrics.gauge("audit.pending", () -> head.get() - tail);
+
+        this.consumer = new Thread(this::consume, "OpenHomes-Audit");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Record a home being set. Safe to call from any thread, never blocks.
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean recordSet(Action action, UUID owner, String homeName, double x, double y, double z, String worldName) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return false;
+        }
+        int slot = (int) sequence & mask;
+        fill(slot, action, owner, homeName);
+        worlds[slot] = worldName;
+        coords[slot * 3] = x;
+        coords[slot * 3 + 1] = y;
+        coords[slot * 3 + 2] = z;
+        published.lazySet(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Record a home being deleted. Safe to call from any thread, never blocks.
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean recordDelete(Action action, UUID owner, String homeName) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return false;
+        }
+        int slot = (int) sequence & mask;
+        fill(slot, action, owner, homeName);
+        worlds[slot] = null;
+        published.lazySet(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Stop the writer thread after it has written every recorded event.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the next sequence number, or -1 if the buffer is full
+     */
+    private long claim() {
+        while (true) {
+            long sequence = head.get();
+            if (sequence - tail > mask) {
+                dropped.increment();
+                return -1;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                if (sequence - tail == (mask + 1) >> 1) {
+                    // Wake the writer early during bursts instead of waiting out its idle sleep
+                    LockSupport.unpark(consumer);
+                }
+                return sequence;
+            }
+        }
+    }
+
+    private void fill(int slot, Action action, UUID owner, String homeName) {
+        times[slot] = System.currentTimeMillis();
+        actions[slot] = (byte) action.ordinal();
+        owners[slot] = owner;
+        names[slot] = homeName;
+    }
+
+    private void consume() {
+        StringBuilder line = new StringBuilder(256);
+        try {
+            openWriter();
+        } catch (IOException e) {
+            retryAt = System.nanoTime() + RETRY_NANOS;
+            LOGGER.atSevere().withCause(e).log("Could not open audit log, events are discarded until it opens");
+        }
+
+        while (true) {
+            boolean stopping = !running;
+            int written = drain(line);
+            reportDrops();
+            if (written == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        closeWriter();
+    }
+
+    /**
+     * Write every published event in order.
+     * @return number of events taken from the buffer
+     */
+    private int drain(StringBuilder line) {
+        int count = 0;
+        long next = tail;
+        while (true) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next) {
+                break;
+            }
+
+            line.setLength(0);
+            format(slot, line);
+            owners[slot] = null;
+            names[slot] = null;
+            worlds[slot] = null;
+            tail = ++next;
+            count++;
+            write(line);
+        }
+
+        if (count > 0 && writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Error flushing audit log");
+            }
+        }
+        return count;
+    }
+
+    private void format(int slot, StringBuilder line) {
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(times[slot]))
+                .append("\",\"action\":\"").append(ACTIONS[actions[slot]])
+                .append("\",\"uuid\":\"").append(owners[slot])
+                .append("\",\"name\":");
+        appendString(line, names[slot]);
+        if (worlds[slot] != null) {
+            line.append(",\"world\":");
+            appendString(line, worlds[slot]);
+            line.append(",\"x\":").append(coords[slot * 3])
+                    .append(",\"y\":").append(coords[slot * 3 + 1])
+                    .append(",\"z\":").append(coords[slot * 3 + 2]);
+        }
+        line.append("}\n");
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void write(StringBuilder line) {
+        try {
+            if (writer == null) {
+                if (System.nanoTime() < retryAt) {
+                    return;
+                }
+                openWriter();
+            }
+            int bytes = utf8Length(line);
+            if (fileBytes + bytes > maxFileBytes && fileBytes > 0 && System.nanoTime() >= retryAt) {
+                rotate();
+            }
+            writer.append(line);
+            fileBytes += bytes;
+        } catch (IOException e) {
+            retryAt = System.nanoTime() + RETRY_NANOS;
+            LOGGER.atWarning().withCause(e).log("Error writing audit log");
+        }
+    }
+
+    /**
+     * @return length of the line once encoded, without encoding it
+     */
+    private static int utf8Length(CharSequence line) {
+        int bytes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length()
+                    && Character.isLowSurrogate(line.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired, written as '?'
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void reportDrops() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            LOGGER.atWarning().log("Audit buffer full, dropped " + (total - droppedReported) + " events (" +
+                    total + " total)");
+            droppedReported = total;
+        }
+    }
+
+    /**
+     * Rename the current file to audit-&lt;time&gt;.ndjson, start a new one and delete the oldest rotated
+     * files beyond the configured count. If the file can't be renamed, writing goes on in the current
+     * file and rotation is retried later.
+     */
+    private void rotate() throws IOException {
+        closeWriter();
+        String stamp = Instant.now().toString().replace(':', '-');
+        try {
+            Files.move(currentFile.toPath(), new File(folder, "audit-" + stamp + ".ndjson").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            retryAt = System.nanoTime() + RETRY_NANOS;
+            LOGGER.atWarning().withCause(e).log("Could not rotate audit log, retrying in a minute");
+            openWriter();
+            return;
+        }
+
+        File[] rotated = folder.listFiles((dir, name) -> name.startsWith("audit-") && name.endsWith(".ndjson"));
+        if (rotated != null && rotated.length > maxFiles) {
+            // Timestamps sort in the same order as their names
+            Arrays.sort(rotated);
+            for (int i = 0; i < rotated.length - maxFiles; i++) {
+                if (!rotated[i].delete()) {
+                    LOGGER.atWarning().log("Could not delete old audit file " + rotated[i].getName());
+                }
+            }
+        }
+        openWriter();
+    }
+
+    private void openWriter() throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(currentFile, true), StandardCharsets.UTF_8), 64 * 1024);
+        this.fileBytes = currentFile.length();
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Error closing audit log");
+        }
+        writer = null;
+    }
+}
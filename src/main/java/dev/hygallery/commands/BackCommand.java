@@ -0,0 +1,98 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hygallery.data.BackHistory;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.Location;
+import dev.hygallery.metrics.LatencyHistogram;
+import dev.hygallery.world.ChunkPrefetcher;
+import dev.hygallery.world.TeleportScheduler;
+import dev.hygallery.world.TeleportTimers;
+import dev.hygallery.world.WorldDirectory;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /back returns the player to where they were before their last /home. Each use goes one step
+ * further back through their history, and going back is not itself recorded.
+ */
+public class BackCommand extends AbstractAsyncCommand {
+
+    private final BackHistory backHistory;
+    private final Teleporter teleporter;
+    private final LatencyHistogram latency;
+
+    public BackCommand(DataHandler dataHandler, WorldDirectory worldDirectory, ChunkPrefetcher prefetcher,
+                       TeleportScheduler scheduler, TeleportTimers timers) {
+        super("back", "Return to where you were before your last teleport");
+        this.backHistory = dataHandler.getBackHistory();
+        this.teleporter = new Teleporter(dataHandler, worldDirectory, prefetcher, scheduler, timers);
+        this.latency = dataHandler.getMetrics().command("back");
+        requirePermission("openhomes.use");
+    }
+
+    @NonNullDecl
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        if (!(context.isPlayer())) {
+            context.sendMessage(Message.raw("Error: attempted to go back from a non-player context").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (backHistory.getCapacity() == 0) {
+            context.sendMessage(Message.raw("/back is disabled in the config").color(Color.ORANGE));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!teleporter.checkCooldown(context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Player player = (Player) context.sender();
+        Ref<EntityStore> ref = player.getReference();
+
+        if (ref == null || !ref.isValid()) {
+            context.sendMessage(Message.raw("Error: invalid ref").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        Store<EntityStore> store = ref.getStore();
+        World world = store.getExternalData().getWorld();
+        return CompletableFuture.supplyAsync(() -> goBack(context, player, ref, store, world), world)
+                .thenCompose(teleport -> teleport)
+                .whenComplete((result, error) -> latency.recordSince(start));
+    }
+
+    /**
+     * Read the latest position from the history and start the teleport. Runs on the player's world thread.
+     */
+    private CompletableFuture<Void> goBack(CommandContext context, Player player, Ref<EntityStore> ref,
+                                           Store<EntityStore> store, World world) {
+        PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+
+        if (playerRef == null) {
+            context.sendMessage(Message.raw("Error: could not find player data").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Stays in the history until the player is actually moved, a cancelled or failed /back keeps it
+        Location previous = backHistory.peek(playerRef.getUuid());
+        if (previous == null) {
+            context.sendMessage(Message.raw("There is nowhere to go back to").color(Color.ORANGE));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return teleporter.teleport(context, player, playerRef, ref, store, world, previous,
+                "Teleported back (" + (backHistory.size(playerRef.getUuid()) - 1) + " more)", false,
+                () -> backHistory.remove(playerRef.getUuid(), previous));
+    }
+}
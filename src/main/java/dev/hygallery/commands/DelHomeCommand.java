@@ -8,6 +8,7 @@ import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import dev.hygallery.data.DataHandler;
+import dev.hygallery.metrics.LatencyHistogram;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -18,10 +19,12 @@ public class DelHomeCommand extends AbstractCommand {
 
     private final DataHandler dataHandler;
     private final RequiredArg<String> nameArg;
+    private final LatencyHistogram latency;
 
     public DelHomeCommand(DataHandler dataHandler) {
         super("delhome", "List your current homes");
         this.dataHandler = dataHandler;
+        this.latency = dataHandler.getMetrics().command("delhome");
         requirePermission("openhomes.use");
 
         nameArg = withRequiredArg("name", "The name of the home to be deleted", ArgTypes.STRING);
@@ -31,19 +34,27 @@ public class DelHomeCommand extends AbstractCommand {
     @Override
     protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
 
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
         if (!(context.isPlayer())) {
             context.sendMessage(Message.raw("Error: attempted to list homes from a non-player context"));
             return CompletableFuture.completedFuture(null);
         }
 
+        long start = System.nanoTime();
         String homeName = nameArg.get(context);
 
-        if (dataHandler.deleteHome(context.sender().getUuid().toString(), homeName)) {
+        String playerUuid = context.sender().getUuid().toString();
+
+        if (dataHandler.deleteHome(playerUuid, homeName)) {
             context.sendMessage(Message.raw("Successfully deleted home '" + homeName).color(Color.GREEN));
         } else {
-            context.sendMessage(Message.raw("Failed to delete home '" + homeName + "', " +
-                    "list your current homes with /lsh").color(Color.ORANGE));
+            context.sendMessage(Message.raw("Failed to delete home '" + homeName + "'").color(Color.ORANGE));
+            context.sendMessage(Message.raw(HomeArgs.didYouMean(dataHandler, playerUuid, homeName)));
         }
+        latency.recordSince(start);
 
         return CompletableFuture.completedFuture(null);
     }
@@ -0,0 +1,79 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class DelHomesInCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<Double> x1Arg;
+    private final RequiredArg<Double> y1Arg;
+    private final RequiredArg<Double> z1Arg;
+    private final RequiredArg<Double> x2Arg;
+    private final RequiredArg<Double> y2Arg;
+    private final RequiredArg<Double> z2Arg;
+    private final OptionalArg<String> worldArg;
+
+    public DelHomesInCommand(DataHandler dataHandler) {
+        super("delhomesin", "Delete every player's homes inside a box");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        x1Arg = withRequiredArg("x1", "First corner X", ArgTypes.DOUBLE);
+        y1Arg = withRequiredArg("y1", "First corner Y", ArgTypes.DOUBLE);
+        z1Arg = withRequiredArg("z1", "First corner Z", ArgTypes.DOUBLE);
+        x2Arg = withRequiredArg("x2", "Opposite corner X", ArgTypes.DOUBLE);
+        y2Arg = withRequiredArg("y2", "Opposite corner Y", ArgTypes.DOUBLE);
+        z2Arg = withRequiredArg("z2", "Opposite corner Z", ArgTypes.DOUBLE);
+        worldArg = withOptionalArg("world", "World to clear, defaults to your current world", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!dataHandler.hasSpatialIndex()) {
+            context.sendMessage(Message.raw("Error: the spatial index is disabled in the config").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String worldName = HomeArgs.worldName(context, worldArg);
+        if (worldName == null) {
+            context.sendMessage(Message.raw("Error: name a world to clear").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        double x1 = x1Arg.get(context);
+        double y1 = y1Arg.get(context);
+        double z1 = z1Arg.get(context);
+        double x2 = x2Arg.get(context);
+        double y2 = y2Arg.get(context);
+        double z2 = z2Arg.get(context);
+        if (!HomeArgs.inWorld(x1, y1, z1, x2, y2, z2)) {
+            context.sendMessage(Message.raw("Error: the corners must be within " + (long) HomeArgs.WORLD_LIMIT +
+                    " blocks of the origin").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return HomeArgs.inBackground(dataHandler, context, () -> {
+            int deleted = dataHandler.deleteHomesIn(worldName,
+                    Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                    Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2));
+            context.sendMessage(Message.raw("Deleted " + deleted + " homes in '" + worldName + "'").color(Color.GREEN));
+        });
+    }
+}
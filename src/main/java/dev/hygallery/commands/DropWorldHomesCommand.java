@@ -0,0 +1,46 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.WorldChangeResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class DropWorldHomesCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<String> worldArg;
+
+    public DropWorldHomesCommand(DataHandler dataHandler) {
+        super("dropworldhomes", "Delete every player's homes in a world");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        worldArg = withRequiredArg("world", "World whose homes are deleted", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String worldName = worldArg.get(context);
+
+        return HomeArgs.inBackground(dataHandler, context, () -> {
+            WorldChangeResult result = dataHandler.dropWorldHomes(worldName);
+            context.sendMessage(Message.raw("Deleted " + result.getChanged() + " homes in world '" + worldName + "'")
+                    .color(Color.GREEN));
+            HomeArgs.reportFailedOwners(context, result);
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.HomeFormat;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class ExportHomesCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final OptionalArg<String> formatArg;
+
+    public ExportHomesCommand(DataHandler dataHandler) {
+        super("homeexport", "Export all homes to a file");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        formatArg = withOptionalArg("format", "json, csv or ndjson, defaults to json", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HomeFormat format = formatArg.provided(context) ? HomeFormat.parse(formatArg.get(context)) : HomeFormat.JSON;
+        if (format == null) {
+            context.sendMessage(Message.raw("Error: format must be json, csv or ndjson").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        File exportFolder = new File("plugins/openhomes/export");
+        if (!exportFolder.exists() && !exportFolder.mkdirs()) {
+            context.sendMessage(Message.raw("Error: could not create " + exportFolder.getPath()).color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        File target = new File(exportFolder, "homeData-" + System.currentTimeMillis() + "." + format.getExtension());
+
+        context.sendMessage(Message.raw("Exporting homes to " + target.getPath() + "..."));
+
+        // Can walk every player on disk, keep it off the command thread
+        return CompletableFuture.runAsync(() -> {
+            try {
+                int players = dataHandler.exportHomes(target, format, (homes, percent) ->
+                        context.sendMessage(Message.raw("Exported " + homes + " homes so far...").color(Color.YELLOW)));
+                context.sendMessage(Message.raw("Exported homes for " + players + " players").color(Color.GREEN));
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Error: export failed, " + e.getMessage()).color(Color.RED));
+            }
+        });
+    }
+}
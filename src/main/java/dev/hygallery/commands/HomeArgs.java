@@ -0,0 +1,180 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.PublicHomeDirectory;
+import dev.hygallery.data.WorldChangeResult;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Argument handling shared by the home commands. The raw input is scanned in place instead of
+ * being split with a regex, so reading the home name allocates only the name itself.
+ */
+final class HomeArgs {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    static final String DEFAULT_HOME = "home";
+    // Farthest a coordinate given to an admin command may be from the origin
+    static final double WORLD_LIMIT = 32_000_000;
+    private static final int MAX_SUGGESTIONS = 5;
+
+    private HomeArgs() {
+    }
+
+    /**
+     * Wait briefly for the homes to finish loading at startup.
+     * @return true if they are ready, otherwise the sender has been asked to try again
+     */
+    static boolean ready(DataHandler dataHandler, CommandContext context) {
+        if (dataHandler.awaitReady()) {
+            return true;
+        }
+        context.sendMessage(Message.raw("Homes are still loading, try again in a moment").color(Color.YELLOW));
+        return false;
+    }
+
+    /**
+     * Bulk store work for an admin command.
+     */
+    interface StoreTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Run an admin command's store work on the {@link DataHandler}'s admin thread. If it fails the
+     * sender is told instead of being left without a reply.
+     */
+    static CompletableFuture<Void> inBackground(DataHandler dataHandler, CommandContext context, StoreTask task) {
+        return dataHandler.runInBackground(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.atSevere().withCause(e).log("Admin command failed: " + context.getInputString());
+                context.sendMessage(Message.raw("Error: could not update homes, " + e.getMessage()).color(Color.RED));
+            }
+        });
+    }
+
+    /**
+     * Tell the sender how many owners a world change had to leave alone.
+     */
+    static void reportFailedOwners(CommandContext context, WorldChangeResult result) {
+        if (result.getFailedOwners() > 0) {
+            context.sendMessage(Message.raw(result.getFailedOwners() + " owners' homes could not be loaded and " +
+                    "were left unchanged, run the command again later").color(Color.ORANGE));
+        }
+    }
+
+    /**
+     * @return the lowercased home name given after the command, or "home" if there is none
+     */
+    static String homeName(CommandContext context) {
+        String name = argument(context.getInputString(), 1);
+        return name == null ? DEFAULT_HOME : name.toLowerCase();
+    }
+
+    /**
+     * Tell the sender if a home name can't be used for a new home.
+     * @return true if the name is allowed
+     */
+    static boolean checkNewName(CommandContext context, String homeName) {
+        if (homeName.indexOf(PublicHomeDirectory.OWNER_SEPARATOR) < 0) {
+            return true;
+        }
+        context.sendMessage(Message.raw("Home names can't contain '" + PublicHomeDirectory.OWNER_SEPARATOR + "'")
+                .color(Color.ORANGE));
+        return false;
+    }
+
+    /**
+     * @param input Raw command input, the command name is argument 0
+     * @return the whitespace separated argument at index, or null if there are fewer arguments
+     */
+    static String argument(String input, int index) {
+        int length = input.length();
+        int position = 0;
+        for (int argument = 0; ; argument++) {
+            while (position < length && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                return null;
+            }
+            int start = position;
+            while (position < length && !Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+            if (argument == index) {
+                return input.substring(start, position);
+            }
+        }
+    }
+
+    /**
+     * @return everything after the argument at index with surrounding whitespace trimmed, empty if there is nothing
+     */
+    static String rest(String input, int index) {
+        int length = input.length();
+        int position = 0;
+        for (int argument = 0; argument <= index; argument++) {
+            while (position < length && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+            while (position < length && !Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+        return input.substring(position).trim();
+    }
+
+    /**
+     * @return true if every value is a finite coordinate within {@link #WORLD_LIMIT} of the origin
+     */
+    static boolean inWorld(double... coordinates) {
+        for (double coordinate : coordinates) {
+            if (!Double.isFinite(coordinate) || Math.abs(coordinate) > WORLD_LIMIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the world named by the argument, else the world the sending player is in, else null
+     */
+    static String worldName(CommandContext context, OptionalArg<String> worldArg) {
+        if (worldArg.provided(context)) {
+            return worldArg.get(context);
+        }
+        if (!context.isPlayer()) {
+            return null;
+        }
+        Ref<EntityStore> ref = ((Player) context.sender()).getReference();
+        if (ref == null || !ref.isValid()) {
+            return null;
+        }
+        return ref.getStore().getExternalData().getWorld().getName();
+    }
+
+    /**
+     * Text telling the player which homes they may have meant, or how to list them if nothing is close.
+     */
+    static String didYouMean(DataHandler dataHandler, String uuid, String homeName) {
+        List<String> suggestions = dataHandler.suggestHomeNames(uuid, homeName, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            return "List your current homes with /lsh";
+        }
+        return "Did you mean: " + String.join(", ", suggestions) + "?";
+    }
+}
@@ -0,0 +1,52 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class HomeBackupCommand extends AbstractCommand {
+
+    private static final int LISTED_BACKUPS = 5;
+
+    private final DataHandler dataHandler;
+
+    public HomeBackupCommand(DataHandler dataHandler) {
+        super("homebackup", "Back up every home now");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        context.sendMessage(Message.raw("Backing up homes..."));
+
+        // Walks every player on disk, keep it off the command thread
+        return CompletableFuture.runAsync(() -> {
+            try {
+                String name = dataHandler.createBackup();
+                context.sendMessage(Message.raw("Backed up homes to " + name).color(Color.GREEN));
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Error: backup failed, " + e.getMessage()).color(Color.RED));
+                return;
+            }
+
+            List<String> backups = dataHandler.listBackups();
+            context.sendMessage(Message.raw("Latest backups: " +
+                    String.join(", ", backups.subList(0, Math.min(LISTED_BACKUPS, backups.size())))));
+        });
+    }
+}
@@ -5,20 +5,34 @@ import com.hypixel.hytale.protocol.*;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.PublicHome;
+import dev.hygallery.metrics.LatencyHistogram;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class HomeListCommand extends AbstractCommand {
 
+    private static final int PAGE_SIZE = 20;
+
     private final DataHandler dataHandler;
+    private final LatencyHistogram latency;
+    private final OptionalArg<Integer> pageArg;
 
     public HomeListCommand(DataHandler dataHandler) {
         super("lsh", "List your current homes");
         this.dataHandler = dataHandler;
+        this.latency = dataHandler.getMetrics().command("lsh");
+        pageArg = withOptionalArg("page", "Page of homes to show, defaults to 1", ArgTypes.INTEGER);
         requirePermission("openhomes.use");
     }
 
@@ -26,14 +40,37 @@ public class HomeListCommand extends AbstractCommand {
     @Override
     protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
 
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
         if (!(context.isPlayer())) {
             context.sendMessage(Message.raw("Error: attempted to list homes from a non-player context"));
             return CompletableFuture.completedFuture(null);
         }
 
-        Set<String> homes = dataHandler.getHomeNames(context.sender().getUuid().toString());
+        long start = System.nanoTime();
+        UUID uuid = context.sender().getUuid();
+        Set<String> homes = dataHandler.getHomeNames(uuid.toString());
+        Set<String> published = new HashSet<>();
+        for (PublicHome home : dataHandler.getPublicHomes().homesOf(uuid)) {
+            published.add(home.getName());
+        }
+
+        // Names come back sorted, so pages are stable between calls
+        int pages = Math.max(1, (homes.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int page = pageArg.provided(context) ? Math.min(Math.max(1, pageArg.get(context)), pages) : 1;
+        List<String> shown = new ArrayList<>(PAGE_SIZE);
+        int index = 0;
+        for (String home : homes) {
+            if (index++ / PAGE_SIZE == page - 1) {
+                shown.add(published.contains(home) ? home + " (public)" : home);
+            }
+        }
 
-        context.sendMessage(Message.raw("Current homes: " + homes));
+        context.sendMessage(Message.raw("Current homes" + (pages > 1 ? " (page " + page + "/" + pages + ")" : "") +
+                ": " + shown));
+        latency.recordSince(start);
         return CompletableFuture.completedFuture(null);
     }
 }
@@ -0,0 +1,51 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class HomeRestoreCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<String> backupArg;
+
+    public HomeRestoreCommand(DataHandler dataHandler) {
+        super("homerestore", "Replace every home with a backup");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        backupArg = withRequiredArg("backup", "File name in plugins/openhomes/backups, see /homebackup", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String name = backupArg.get(context);
+        context.sendMessage(Message.raw("Checking and restoring " + name + "..."));
+
+        // Loads and rewrites every player, keep it off the command thread
+        return CompletableFuture.runAsync(() -> {
+            try {
+                int players = dataHandler.restoreBackup(name);
+                context.sendMessage(Message.raw("Restored homes for " + players + " players from " + name)
+                        .color(Color.GREEN));
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Error: restore failed, " + e.getMessage()).color(Color.RED));
+            }
+        });
+    }
+}
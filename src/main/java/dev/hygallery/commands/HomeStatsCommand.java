@@ -0,0 +1,34 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.metrics.HomeMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class HomeStatsCommand extends AbstractCommand {
+
+    private final HomeMetrics metrics;
+
+    public HomeStatsCommand(HomeMetrics metrics) {
+        super("homestats", "Show home command latencies, storage timings and store size");
+        this.metrics = metrics;
+        requirePermission("openhomes.admin");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        context.sendMessage(Message.raw("OpenHomes stats").color(Color.YELLOW));
+        for (String line : metrics.report()) {
+            context.sendMessage(Message.raw(line));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+}
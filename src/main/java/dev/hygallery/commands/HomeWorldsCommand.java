@@ -0,0 +1,60 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.world.WorldDirectory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class HomeWorldsCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final WorldDirectory worldDirectory;
+
+    public HomeWorldsCommand(DataHandler dataHandler, WorldDirectory worldDirectory) {
+        super("homeworlds", "List the worlds homes are in and how many each has");
+        this.dataHandler = dataHandler;
+        this.worldDirectory = worldDirectory;
+        requirePermission("openhomes.admin");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Reads every stored player until the spatial index is built, keep it off the command thread
+        return CompletableFuture.runAsync(() -> {
+            Map<String, Integer> counts;
+            try {
+                counts = dataHandler.countHomesByWorld();
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Error: could not read homes, " + e.getMessage()).color(Color.RED));
+                return;
+            }
+
+            if (counts.isEmpty()) {
+                context.sendMessage(Message.raw("No homes are set").color(Color.YELLOW));
+                return;
+            }
+            context.sendMessage(Message.raw("Homes by world:").color(Color.GREEN));
+            counts.forEach((worldName, count) -> {
+                if (worldDirectory.resolve(worldName) != null) {
+                    context.sendMessage(Message.raw("  " + worldName + ": " + count));
+                } else {
+                    context.sendMessage(Message.raw("  " + worldName + ": " + count + " (world missing)").color(Color.RED));
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.IndexedHome;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class HomesNearCommand extends AbstractCommand {
+
+    private static final int MAX_LISTED = 20;
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<Double> xArg;
+    private final RequiredArg<Double> zArg;
+    private final RequiredArg<Double> radiusArg;
+    private final OptionalArg<String> worldArg;
+
+    public HomesNearCommand(DataHandler dataHandler) {
+        super("homesnear", "List every player's homes near a point");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        xArg = withRequiredArg("x", "Center X", ArgTypes.DOUBLE);
+        zArg = withRequiredArg("z", "Center Z", ArgTypes.DOUBLE);
+        radiusArg = withRequiredArg("radius", "Horizontal distance from the center", ArgTypes.DOUBLE);
+        worldArg = withOptionalArg("world", "World to search, defaults to your current world", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!dataHandler.hasSpatialIndex()) {
+            context.sendMessage(Message.raw("Error: the spatial index is disabled in the config").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String worldName = HomeArgs.worldName(context, worldArg);
+        if (worldName == null) {
+            context.sendMessage(Message.raw("Error: name a world to search").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        double x = xArg.get(context);
+        double z = zArg.get(context);
+        double radius = radiusArg.get(context);
+        if (!HomeArgs.inWorld(x, z)) {
+            context.sendMessage(Message.raw("Error: the center must be within " + (long) HomeArgs.WORLD_LIMIT +
+                    " blocks of the origin").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!Double.isFinite(radius) || radius < 0) {
+            context.sendMessage(Message.raw("Error: the radius must be a positive number").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        List<IndexedHome> found = dataHandler.findHomesNear(worldName, x, z, radius);
+
+        context.sendMessage(Message.raw(found.size() + " homes within " + radius + " blocks of " +
+                x + ", " + z + " in '" + worldName + "'").color(Color.YELLOW));
+        for (int i = 0; i < Math.min(MAX_LISTED, found.size()); i++) {
+            IndexedHome home = found.get(i);
+            context.sendMessage(Message.raw(String.format("%s (%s) at %.1f %.1f %.1f",
+                    home.getName(), home.getOwner(), home.getX(), home.getY(), home.getZ())));
+        }
+        if (found.size() > MAX_LISTED) {
+            context.sendMessage(Message.raw("... and " + (found.size() - MAX_LISTED) + " more"));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+}
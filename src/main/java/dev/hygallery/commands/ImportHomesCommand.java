@@ -0,0 +1,83 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.ConflictPolicy;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.HomeFormat;
+import dev.hygallery.data.ImportResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class ImportHomesCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<String> fileArg;
+    private final OptionalArg<String> policyArg;
+    private final OptionalArg<String> formatArg;
+
+    public ImportHomesCommand(DataHandler dataHandler) {
+        super("homeimport", "Import homes from a file in plugins/openhomes/import");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        fileArg = withRequiredArg("file", "File name inside plugins/openhomes/import", ArgTypes.STRING);
+        policyArg = withOptionalArg("policy", "skip, overwrite or rename when a home name is taken, defaults to skip",
+                ArgTypes.STRING);
+        formatArg = withOptionalArg("format", "json, csv or ndjson, defaults to the file extension", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String fileName = fileArg.get(context);
+        // Only files dropped into the import folder, never arbitrary paths
+        if (fileName.contains("/") || fileName.contains("\\") || fileName.startsWith(".")) {
+            context.sendMessage(Message.raw("Error: give a file name inside plugins/openhomes/import").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        File source = new File("plugins/openhomes/import", fileName);
+        if (!source.isFile()) {
+            context.sendMessage(Message.raw("Error: " + source.getPath() + " does not exist").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ConflictPolicy policy = policyArg.provided(context) ? ConflictPolicy.parse(policyArg.get(context)) : ConflictPolicy.SKIP;
+        if (policy == null) {
+            context.sendMessage(Message.raw("Error: policy must be skip, overwrite or rename").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        HomeFormat format = formatArg.provided(context) ? HomeFormat.parse(formatArg.get(context)) : HomeFormat.of(source);
+        if (format == null) {
+            context.sendMessage(Message.raw("Error: format must be json, csv or ndjson").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        context.sendMessage(Message.raw("Importing homes from " + source.getPath() + "..."));
+
+        // Reads the whole file and may load many players, keep it off the command thread
+        return CompletableFuture.runAsync(() -> {
+            try {
+                ImportResult result = dataHandler.importHomes(source, format, policy, (homes, percent) ->
+                        context.sendMessage(Message.raw("Import " + percent + "%, " + homes + " homes").color(Color.YELLOW)));
+                context.sendMessage(Message.raw("Import finished: " + result).color(Color.GREEN));
+            } catch (IOException e) {
+                context.sendMessage(Message.raw("Error: import failed, " + e.getMessage()).color(Color.RED));
+            }
+        });
+    }
+}
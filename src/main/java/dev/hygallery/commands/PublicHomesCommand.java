@@ -0,0 +1,80 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.PublicHome;
+import dev.hygallery.data.PublicHomeDirectory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /publichomes [page] lists public homes by popularity, /publichomes &lt;words&gt; [page] searches them.
+ */
+public class PublicHomesCommand extends AbstractCommand {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final DataHandler dataHandler;
+    private final PublicHomeDirectory directory;
+
+    public PublicHomesCommand(DataHandler dataHandler) {
+        super("publichomes", "List or search homes other players have published");
+        this.dataHandler = dataHandler;
+        this.directory = dataHandler.getPublicHomes();
+        setAllowsExtraArguments(true);
+        requirePermission("openhomes.use");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // A trailing number is the page, anything before it is the search
+        String query = HomeArgs.rest(context.getInputString(), 0);
+        int page = 1;
+        int lastSpace = query.lastIndexOf(' ');
+        String last = query.substring(lastSpace + 1);
+        if (!last.isEmpty() && last.chars().allMatch(Character::isDigit) && last.length() < 6) {
+            page = Integer.parseInt(last);
+            query = lastSpace < 0 ? "" : query.substring(0, lastSpace).trim();
+        }
+
+        PublicHomeDirectory.Page result = query.isEmpty()
+                ? directory.list(page, PAGE_SIZE)
+                : directory.search(query, page, PAGE_SIZE);
+
+        if (result.getTotal() == 0) {
+            context.sendMessage(Message.raw(query.isEmpty() ? "No homes are public yet"
+                    : "No public homes match '" + query + "'").color(Color.YELLOW));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        context.sendMessage(Message.raw((query.isEmpty() ? "Public homes" : "Public homes matching '" + query + "'") +
+                " (page " + result.getPage() + "/" + result.getPages() + ", " + result.getTotal() + " total):")
+                .color(Color.GREEN));
+        int rank = (result.getPage() - 1) * PAGE_SIZE;
+        for (PublicHome home : result.getHomes()) {
+            rank++;
+            String line = rank + ". " + home.getOwnerName().toLowerCase() + ":" + home.getName() +
+                    " (" + home.getVisits() + " visits)";
+            if (!home.getDescription().isEmpty()) {
+                line += " - " + home.getDescription();
+            }
+            context.sendMessage(Message.raw(line));
+        }
+        if (result.getPage() < result.getPages()) {
+            context.sendMessage(Message.raw("Next page: /publichomes " + (query.isEmpty() ? "" : query + " ") +
+                    (result.getPage() + 1)).color(Color.YELLOW));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class PublishHomeCommand extends AbstractCommand {
+
+    private static final int MAX_DESCRIPTION = 100;
+
+    private final DataHandler dataHandler;
+
+    public PublishHomeCommand(DataHandler dataHandler) {
+        super("publishhome", "Let other players visit one of your homes");
+        this.dataHandler = dataHandler;
+        setAllowsExtraArguments(true);
+        requirePermission("openhomes.use");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!(context.isPlayer())) {
+            context.sendMessage(Message.raw("Error: attempted to publish a home from a non-player context"));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String input = context.getInputString();
+        String homeName = HomeArgs.argument(input, 1);
+        if (homeName == null) {
+            context.sendMessage(Message.raw("Usage: /publishhome <home> [description]").color(Color.ORANGE));
+            return CompletableFuture.completedFuture(null);
+        }
+        String name = homeName.toLowerCase();
+        if (!HomeArgs.checkNewName(context, name)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String description = HomeArgs.rest(input, 1);
+        if (description.length() > MAX_DESCRIPTION) {
+            description = description.substring(0, MAX_DESCRIPTION);
+        }
+        String uuid = context.sender().getUuid().toString();
+        String ownerName = context.sender().getDisplayName();
+        String text = description;
+
+        // May load the player's homes from disk
+        return CompletableFuture.runAsync(() -> {
+            if (dataHandler.getHome(uuid, name) == null) {
+                context.sendMessage(Message.raw("You do not have a home named '" + name + "'").color(Color.ORANGE));
+                context.sendMessage(Message.raw(HomeArgs.didYouMean(dataHandler, uuid, name)));
+                return;
+            }
+            if (!dataHandler.publishHome(uuid, ownerName, name, text)) {
+                context.sendMessage(Message.raw("You cannot publish more homes, unpublish one with /unpublishhome")
+                        .color(Color.ORANGE));
+                return;
+            }
+            context.sendMessage(Message.raw("Published '" + name + "', others can visit it with /home " +
+                    ownerName.toLowerCase() + ":" + name).color(Color.GREEN));
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.WorldChangeResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class RenameWorldHomesCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+    private final RequiredArg<String> fromArg;
+    private final RequiredArg<String> toArg;
+
+    public RenameWorldHomesCommand(DataHandler dataHandler) {
+        super("renameworldhomes", "Move every home in a world to a new world name");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+
+        fromArg = withRequiredArg("from", "World name the homes have now", ArgTypes.STRING);
+        toArg = withRequiredArg("to", "World name to give them", ArgTypes.STRING);
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String from = fromArg.get(context);
+        String to = toArg.get(context);
+
+        return HomeArgs.inBackground(dataHandler, context, () -> {
+            WorldChangeResult result = dataHandler.renameWorldHomes(from, to);
+            context.sendMessage(Message.raw("Moved " + result.getChanged() + " homes from world '" + from +
+                    "' to '" + to + "'").color(Color.GREEN));
+            HomeArgs.reportFailedOwners(context, result);
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class SaveHomesCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+
+    public SaveHomesCommand(DataHandler dataHandler) {
+        super("homesave", "Write all pending home changes to disk now");
+        this.dataHandler = dataHandler;
+        requirePermission("openhomes.admin");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (dataHandler.flush()) {
+            context.sendMessage(Message.raw("Saved homes to disk").color(Color.GREEN));
+        } else {
+            context.sendMessage(Message.raw("Failed to save homes, check the server log").color(Color.RED));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -15,6 +15,9 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import dev.hygallery.data.DataHandler;
 import dev.hygallery.data.Location;
+import dev.hygallery.metrics.HomeMetrics;
+import dev.hygallery.metrics.LatencyHistogram;
+import dev.hygallery.world.WorldDirectory;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 import org.jetbrains.annotations.NotNull;
 
@@ -24,25 +27,32 @@ import java.util.concurrent.CompletableFuture;
 public class SetHomeCommand extends AbstractAsyncCommand {
 
     private final DataHandler dataHandler;
+    private final WorldDirectory worldDirectory;
+    private final HomeMetrics metrics;
+    private final LatencyHistogram latency;
 
-    public SetHomeCommand(DataHandler dataHandler) {
+    public SetHomeCommand(DataHandler dataHandler, WorldDirectory worldDirectory) {
         super("sethome", "Set your home point");
         this.dataHandler = dataHandler;
+        this.worldDirectory = worldDirectory;
+        this.metrics = dataHandler.getMetrics();
+        this.latency = metrics.command("sethome");
         setAllowsExtraArguments(true);
         requirePermission("openhomes.use");
     }
 
-    private String getHomeName(CommandContext context) {
-        String inp = context.getInputString().trim();
-        String[] args = inp.split("\\s+");
-        if (args.length > 1)
-            return args[1];
-        return null;
-    }
-
     @NonNullDecl
     @Override
     protected CompletableFuture<Void> executeAsync(@NotNull CommandContext context) {
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        return setHome(context).whenComplete((result, error) -> latency.recordSince(start));
+    }
+
+    private CompletableFuture<Void> setHome(CommandContext context) {
 
         if (!(context.isPlayer())) {
             context.sendMessage(Message.raw("Error: attempted to set home from a non-player context"));
@@ -58,15 +68,15 @@ public class SetHomeCommand extends AbstractAsyncCommand {
 
         Store<EntityStore> store = ref.getStore();
         World world = store.getExternalData().getWorld();
-        String worldName = world.getName();
 
-        if (worldName.toLowerCase().contains("instance")) {
+        if (worldDirectory.isInstance(world)) {
             context.sendMessage(Message.raw("Error: cannot set home in non-persistent world."));
             return CompletableFuture.completedFuture(null);
         }
 
-        // Access sensitive components in the context of the world executor
-        return CompletableFuture.runAsync(() -> {
+        // Access sensitive components in the context of the world executor,
+        // once the player's homes are in memory (sharded mode loads them on demand)
+        return dataHandler.ensureLoaded(context.sender().getUuid().toString()).thenRunAsync(metrics.onWorldThread(() -> {
             // PlayerRef component contains actual player data
             PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
 
@@ -87,13 +97,18 @@ public class SetHomeCommand extends AbstractAsyncCommand {
             Location location = new Location(copiedPosition, world.getName());
 
             // default to "home" if no name is given
-            String homeName = getHomeName(context);
-            homeName = ((homeName == null) ? "home" : homeName).toLowerCase();
+            String homeName = HomeArgs.homeName(context);
+            if (!HomeArgs.checkNewName(context, homeName)) {
+                return;
+            }
 
-            dataHandler.setHome(playerUuid, homeName, location);
+            if (!dataHandler.setHome(playerUuid, homeName, location)) {
+                context.sendMessage(Message.raw("Error: could not load your homes, try again later").color(Color.RED));
+                return;
+            }
 
             context.sendMessage(Message.raw("Home '" + homeName + "' Set!").color(Color.GREEN));
-        }, world);
+        }), world);
 
 
     }
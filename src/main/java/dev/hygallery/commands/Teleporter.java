@@ -0,0 +1,237 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.protocol.Direction;
+import com.hypixel.hytale.protocol.ModelTransform;
+import com.hypixel.hytale.protocol.Position;
+import com.hypixel.hytale.protocol.packets.player.ClientTeleport;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hygallery.data.BackHistory;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.Location;
+import dev.hygallery.metrics.HomeMetrics;
+import dev.hygallery.world.ChunkPrefetcher;
+import dev.hygallery.world.TeleportScheduler;
+import dev.hygallery.world.TeleportTimers;
+import dev.hygallery.world.WorldDirectory;
+
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves a player to a location in any world for /home and /back. The player first stands still
+ * through their warmup, then the chunks around the destination are loaded, the teleport waits for
+ * a slot in the target world, and the position the player leaves can go into their {@link BackHistory}.
+ */
+final class Teleporter {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private final WorldDirectory worldDirectory;
+    private final ChunkPrefetcher prefetcher;
+    private final TeleportScheduler scheduler;
+    private final TeleportTimers timers;
+    private final BackHistory backHistory;
+    private final LongAdder transfersSucceeded;
+    private final LongAdder transfersFailed;
+
+    Teleporter(DataHandler dataHandler, WorldDirectory worldDirectory, ChunkPrefetcher prefetcher,
+               TeleportScheduler scheduler, TeleportTimers timers) {
+        this.worldDirectory = worldDirectory;
+        this.prefetcher = prefetcher;
+        this.scheduler = scheduler;
+        this.timers = timers;
+        this.backHistory = dataHandler.getBackHistory();
+        HomeMetrics metrics = dataHandler.getMetrics();
+        this.transfersSucceeded = metrics.counter("transfer.success");
+        this.transfersFailed = metrics.counter("transfer.failure");
+    }
+
+    /**
+     * Tell the sender if their teleport cooldown is still running.
+     * @return true if they may teleport now
+     */
+    boolean checkCooldown(CommandContext context) {
+        long remaining = timers.getCooldownRemainingMillis(context.sender().getUuid());
+        if (remaining == 0) {
+            return true;
+        }
+        context.sendMessage(Message.raw("You can teleport again in " + (remaining + 999) / 1000 + "s").color(Color.ORANGE));
+        return false;
+    }
+
+    /**
+     * Wait out the sender's warmup and move them. Their cooldown starts once they have actually been
+     * moved. Runs on the player's world thread.
+     * @param arrived Sent once a same-world teleport is done
+     * @param remember Whether the position the player leaves goes into their /back history
+     * @param moved Run once the player has actually been moved, never on cancellation or error
+     * @return future completed once the player has been moved, or right away on error or cancellation
+     */
+    CompletableFuture<Void> teleport(CommandContext context, Player player, PlayerRef playerRef, Ref<EntityStore> ref,
+                                     Store<EntityStore> store, World world, Location destination, String arrived,
+                                     boolean remember, Runnable moved) {
+        long warmupMillis = timers.getWarmupMillis(context.sender());
+        long cooldownMillis = timers.getCooldownMillis(context.sender());
+        if (warmupMillis > 0) {
+            context.sendMessage(Message.raw("Teleporting in " + warmupMillis / 1000.0 + "s, don't move")
+                    .color(Color.YELLOW));
+        }
+
+        return timers.warmUp(playerRef.getUuid(), ref, store, world, warmupMillis).thenCompose(ready -> {
+            if (!ready) {
+                context.sendMessage(Message.raw("Teleport cancelled").color(Color.ORANGE));
+                return CompletableFuture.completedFuture(null);
+            }
+            // A teleport that fails or is replaced in the queue leaves the player free to try again
+            return move(context, player, playerRef, ref, store, world, destination, arrived, remember, () -> {
+                timers.startCooldown(playerRef.getUuid(), cooldownMillis);
+                moved.run();
+            });
+        });
+    }
+
+    private CompletableFuture<Void> move(CommandContext context, Player player, PlayerRef playerRef,
+                                         Ref<EntityStore> ref, Store<EntityStore> store, World world,
+                                         Location destination, String arrived, boolean remember,
+                                         Runnable moved) {
+        Vector3d coords = destination.getCoords();
+        String targetWorldName = destination.getWorldName();
+
+        if (!world.getName().equals(targetWorldName)) {
+            // Different world - use World.addPlayer() API
+            World targetWorld = worldDirectory.resolve(targetWorldName);
+
+            // Fail before the player is removed from their current world
+            if (targetWorld == null) {
+                context.sendMessage(Message.raw("Error: world '" + targetWorldName + "' doesn't exist").color(Color.ORANGE));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Let the target world load the destination before the player leaves this one,
+            // then wait for a slot so mass transfers are spread over several ticks
+            return prefetcher.prefetchRemote(targetWorld, coords.x, coords.z)
+                    .thenCompose(ready -> scheduler.submit(playerRef.getUuid(), world, targetWorld, () -> {
+                        if (!ref.isValid()) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        Runnable transferred = remember ? remember(playerRef, ref, store, world, moved) : moved;
+                        return transfer(context, playerRef, targetWorld, coords, transferred);
+                    }, place -> sendQueuePosition(context, place)));
+        }
+
+        // Same world teleport, once the chunks around the destination are loaded and a slot is free
+        return prefetcher.prefetch(world, coords.x, coords.z)
+                .thenCompose(ready -> scheduler.submit(playerRef.getUuid(), world, world, () -> {
+                    if (ref.isValid()) {
+                        Runnable teleported = remember ? remember(playerRef, ref, store, world, moved) : moved;
+                        if (teleportInWorld(context, player, ref, store, coords, arrived)) {
+                            teleported.run();
+                        }
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }, place -> sendQueuePosition(context, place)));
+    }
+
+    /**
+     * Read where the player is standing before they are moved. Runs on the world thread.
+     * @return moved, preceded by recording that position in the /back history so a failed
+     *         teleport leaves the history alone
+     */
+    private Runnable remember(PlayerRef playerRef, Ref<EntityStore> ref, Store<EntityStore> store, World world,
+                              Runnable moved) {
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+        if (transform == null) {
+            return moved;
+        }
+        Vector3d position = transform.getPosition();
+        double x = position.x;
+        double y = position.y;
+        double z = position.z;
+        String worldName = world.getName();
+        return () -> {
+            backHistory.record(playerRef.getUuid(), x, y, z, worldName);
+            moved.run();
+        };
+    }
+
+    private void sendQueuePosition(CommandContext context, int place) {
+        context.sendMessage(Message.raw("Teleport queued, you are #" + place + " in line").color(Color.YELLOW));
+    }
+
+    private CompletableFuture<Void> transfer(CommandContext context, PlayerRef playerRef, World targetWorld,
+                                             Vector3d coords, Runnable moved) {
+        String targetWorldName = targetWorld.getName();
+        try {
+            // Step 1: Remove player from current world
+            playerRef.removeFromStore();
+
+            // Step 2: Create transform for target location
+            Transform transform = new Transform(
+                    coords.x, coords.y, coords.z,
+                    0.0f, 0.0f, 0.0f
+            );
+
+            // Step 3: Add player to target world (this returns a CompletableFuture)
+            CompletableFuture<PlayerRef> transferFuture = targetWorld.addPlayer(playerRef, transform);
+
+            // Step 4: Wait for transfer and handle result
+            return transferFuture.thenAccept(resultPlayerRef -> {
+                if (resultPlayerRef != null) {
+                    transfersSucceeded.increment();
+                    moved.run();
+                    context.sendMessage(Message.raw("Changed world to " + targetWorldName).color(Color.GREEN));
+                } else {
+                    transfersFailed.increment();
+                    context.sendMessage(Message.raw("Error: failed to transfer to target world").color(Color.ORANGE));
+                }
+            }).exceptionally(throwable -> {
+                transfersFailed.increment();
+                context.sendMessage(Message.raw("Error during transfer: " + throwable.getMessage()).color(Color.ORANGE));
+                LOGGER.atSevere().withCause(throwable).log("Error transferring player to world " + targetWorldName);
+                return null;
+            });
+
+        } catch (Exception e) {
+            transfersFailed.increment();
+            context.sendMessage(Message.raw("Error: " + e.getMessage()).color(Color.ORANGE));
+            LOGGER.atSevere().withCause(e).log("Error transferring player to world " + targetWorldName);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * @return true if the player was moved
+     */
+    private boolean teleportInWorld(CommandContext context, Player player, Ref<EntityStore> ref,
+                                    Store<EntityStore> store, Vector3d coords, String arrived) {
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+
+        if (transform == null) {
+            context.sendMessage(Message.raw("Error: could not access player transform").color(Color.ORANGE));
+            return false;
+        }
+
+        transform.teleportPosition(coords);
+
+        Position pos = new Position(coords.x, coords.y, coords.z);
+        Direction body = new Direction(0f, 0f, 0f);
+        Direction look = new Direction(0f, 0f, 0f);
+        ModelTransform modelTransform = new ModelTransform(pos, body, look);
+
+        player.getPlayerConnection().write(new ClientTeleport((byte) 0, modelTransform, true));
+
+        context.sendMessage(Message.raw(arrived).color(Color.GREEN));
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package dev.hygallery.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import dev.hygallery.data.DataHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+public class UnpublishHomeCommand extends AbstractCommand {
+
+    private final DataHandler dataHandler;
+
+    public UnpublishHomeCommand(DataHandler dataHandler) {
+        super("unpublishhome", "Stop other players visiting one of your homes");
+        this.dataHandler = dataHandler;
+        setAllowsExtraArguments(true);
+        requirePermission("openhomes.use");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@NotNull CommandContext context) {
+
+        if (!HomeArgs.ready(dataHandler, context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!(context.isPlayer())) {
+            context.sendMessage(Message.raw("Error: attempted to unpublish a home from a non-player context"));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String homeName = HomeArgs.homeName(context);
+        if (dataHandler.unpublishHome(context.sender().getUuid().toString(), homeName)) {
+            context.sendMessage(Message.raw("'" + homeName + "' is private again").color(Color.GREEN));
+        } else {
+            context.sendMessage(Message.raw("'" + homeName + "' is not public").color(Color.ORANGE));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
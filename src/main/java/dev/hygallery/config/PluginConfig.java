@@ -0,0 +1,306 @@
+package dev.hygallery.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plugin settings, read from plugins/openhomes/config.json.
+ * Missing keys keep their defaults and are written back so the file always lists every option.
+ */
+public class PluginConfig {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // Persistence
+    private String storage = "json";
+    private boolean writeBehind = true;
+    private int flushIntervalSeconds = 5;
+    private long journalCompactBytes = 4L * 1024 * 1024;
+    private int maxCachedOfflinePlayers = 1000;
+    private boolean parallelLoad = false;
+    private int sharedRescanSeconds = 30;
+    private boolean backgroundLoad = true;
+    private long loadWaitMillis = 250;
+
+    // Metrics
+    private int metricsDumpIntervalSeconds = 0;
+
+    // Admin tools
+    private boolean spatialIndex = true;
+    private boolean audit = true;
+    private int auditBufferSize = 8192;
+    private long auditMaxFileBytes = 16L * 1024 * 1024;
+    private int auditMaxFiles = 5;
+    private int backupIntervalMinutes = 60;
+    private int backupsKept = 10;
+    private boolean purgeMissingWorlds = false;
+
+    // Public homes
+    private int maxPublicHomes = 3;
+
+    // Teleports
+    private boolean prefetchChunks = true;
+    private int backHistorySize = 5;
+    private int prefetchRadius = 1;
+    private long prefetchTimeoutMillis = 2000;
+    private int teleportsPerTick = 10;
+    private int teleportTickMillis = 50;
+    // Off until an admin sets them, so upgrading keeps /home and /back instant
+    private int warmupSeconds = 0;
+    private int cooldownSeconds = 0;
+    // Permission -> seconds, a player gets the shortest time of any permission they hold
+    private Map<String, Integer> warmupPermissions = new LinkedHashMap<>(Map.of("openhomes.warmup.bypass", 0));
+    private Map<String, Integer> cooldownPermissions = new LinkedHashMap<>(Map.of("openhomes.cooldown.bypass", 0));
+
+    public static PluginConfig load(File dataFolder) {
+        File configFile = new File(dataFolder, "config.json");
+        PluginConfig config = null;
+
+        if (configFile.exists()) {
+            try {
+                config = GSON.fromJson(Files.readString(configFile.toPath()), PluginConfig.class);
+            } catch (IOException | JsonParseException e) {
+                LOGGER.atSevere().withCause(e).log("Error reading config, using defaults");
+            }
+        }
+
+        if (config == null) {
+            config = new PluginConfig();
+        }
+
+        try {
+            if (!dataFolder.exists() && !dataFolder.mkdirs()) {
+                LOGGER.atSevere().log("Failed to create plugin data folder at: " + dataFolder.getAbsolutePath());
+            }
+            Files.writeString(configFile.toPath(), GSON.toJson(config));
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Could not write config to " + configFile.getAbsolutePath());
+        }
+
+        return config;
+    }
+
+    /**
+     * @return storage backend name, "json" (full snapshot), "journal" (snapshot plus append-only log),
+     *         "sharded" (one file per player, loaded on demand), "binary" (memory-mapped homeData.bin),
+     *         "sqlite" (embedded database in homes.db, one row per home) or "shared" (one file per
+     *         player in a data folder that several servers mount, for example on a network volume;
+     *         every player is kept in memory, writes take a file lock on players/.lock and changes
+     *         other servers make are picked up, so the file system must support locking across them)
+     */
+    public String getStorage() {
+        return storage == null ? "json" : storage.toLowerCase();
+    }
+
+    /**
+     * @return how many offline players' homes stay cached by lazy storages (sharded, sqlite) before the least recently used are evicted
+     */
+    public int getMaxCachedOfflinePlayers() {
+        return Math.max(0, maxCachedOfflinePlayers);
+    }
+
+    /**
+     * @return true if player blocks read from homeData.json are packed on several threads
+     */
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+
+    /**
+     * @return true if homes load on a background thread while the server keeps booting
+     */
+    public boolean isBackgroundLoad() {
+        return backgroundLoad;
+    }
+
+    /**
+     * @return how long a command waits for homes that are still loading before telling the player to retry
+     */
+    public long getLoadWaitMillis() {
+        return Math.max(0, loadWaitMillis);
+    }
+
+    /**
+     * @return seconds between scans for files other servers changed in shared storage, backing up
+     *         file system events that network volumes may not deliver; 0 relies on events alone
+     */
+    public int getSharedRescanSeconds() {
+        return Math.max(0, sharedRescanSeconds);
+    }
+
+    /**
+     * @return journal size in bytes after which it is compacted into a fresh snapshot
+     */
+    public long getJournalCompactBytes() {
+        return Math.max(64 * 1024, journalCompactBytes);
+    }
+
+    /**
+     * @return true if mutations only mark the store dirty and a background task writes them out
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * @return seconds between background flushes in write-behind mode
+     */
+    public int getFlushIntervalSeconds() {
+        return Math.max(1, flushIntervalSeconds);
+    }
+
+    /**
+     * @return seconds between writes of plugins/openhomes/metrics.txt, 0 to never write it
+     */
+    public int getMetricsDumpIntervalSeconds() {
+        return Math.max(0, metricsDumpIntervalSeconds);
+    }
+
+    /**
+     * @return true if homes are indexed by position for the area admin commands. Eager storages build
+     *         the index at startup. Lazy storages build it on the first area query, which reads every
+     *         stored player once and keeps all their positions in memory from then on.
+     */
+    public boolean isSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * @return true if home changes are written to plugins/openhomes/audit/audit.ndjson
+     */
+    public boolean isAudit() {
+        return audit;
+    }
+
+    /**
+     * @return audit events buffered for the writer thread before new ones are dropped, rounded down to a power of two
+     */
+    public int getAuditBufferSize() {
+        return Math.max(64, Math.min(1 << 20, auditBufferSize));
+    }
+
+    /**
+     * @return size in bytes after which audit.ndjson is rotated
+     */
+    public long getAuditMaxFileBytes() {
+        return Math.max(64 * 1024, auditMaxFileBytes);
+    }
+
+    /**
+     * @return rotated audit files kept before the oldest is deleted
+     */
+    public int getAuditMaxFiles() {
+        return Math.max(1, auditMaxFiles);
+    }
+
+    /**
+     * @return minutes between automatic backups to plugins/openhomes/backups/, 0 to only back up on command
+     */
+    public int getBackupIntervalMinutes() {
+        return Math.max(0, backupIntervalMinutes);
+    }
+
+    /**
+     * @return backups kept before the oldest is deleted
+     */
+    public int getBackupsKept() {
+        return Math.max(1, backupsKept);
+    }
+
+    /**
+     * @return true if homes in worlds the server no longer has are deleted once the server has started;
+     *         only safe when every world is loaded at startup
+     */
+    public boolean isPurgeMissingWorlds() {
+        return purgeMissingWorlds;
+    }
+
+    /**
+     * @return homes each player may publish for others to visit
+     */
+    public int getMaxPublicHomes() {
+        return Math.max(0, maxPublicHomes);
+    }
+
+    /**
+     * @return positions /back remembers per online player, 0 disables /back
+     */
+    public int getBackHistorySize() {
+        return Math.max(0, Math.min(100, backHistorySize));
+    }
+
+    /**
+     * @return true if the chunks around a home are loaded before the player is teleported there
+     */
+    public boolean isPrefetchChunks() {
+        return prefetchChunks;
+    }
+
+    /**
+     * @return chunks to prefetch on each side of the home's chunk, 1 loads a 3x3 area
+     */
+    public int getPrefetchRadius() {
+        return Math.max(0, Math.min(4, prefetchRadius));
+    }
+
+    /**
+     * @return longest a teleport waits for prefetched chunks before going ahead anyway
+     */
+    public long getPrefetchTimeoutMillis() {
+        return Math.max(0, prefetchTimeoutMillis);
+    }
+
+    /**
+     * @return teleports each target world starts per scheduler tick, the rest wait in line
+     */
+    public int getTeleportsPerTick() {
+        return Math.max(1, teleportsPerTick);
+    }
+
+    /**
+     * @return milliseconds between teleport scheduler ticks
+     */
+    public int getTeleportTickMillis() {
+        return Math.max(10, teleportTickMillis);
+    }
+
+    /**
+     * @return seconds a player stands still before /home or /back moves them, for players without
+     *         a permission from {@link #getWarmupPermissions()}; 0, the default, disables warmups
+     */
+    public int getWarmupSeconds() {
+        return Math.max(0, warmupSeconds);
+    }
+
+    /**
+     * @return seconds after a teleport before the player may use /home or /back again, for players
+     *         without a permission from {@link #getCooldownPermissions()}; 0, the default, disables cooldowns
+     */
+    public int getCooldownSeconds() {
+        return Math.max(0, cooldownSeconds);
+    }
+
+    /**
+     * @return permission to warmup seconds for players who hold it
+     */
+    public Map<String, Integer> getWarmupPermissions() {
+        return warmupPermissions == null ? Collections.emptyMap() : Collections.unmodifiableMap(warmupPermissions);
+    }
+
+    /**
+     * @return permission to cooldown seconds for players who hold it
+     */
+    public Map<String, Integer> getCooldownPermissions() {
+        return cooldownPermissions == null ? Collections.emptyMap() : Collections.unmodifiableMap(cooldownPermissions);
+    }
+}
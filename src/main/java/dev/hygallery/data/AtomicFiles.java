@@ -0,0 +1,127 @@
+package dev.hygallery.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Crash-safe file replacement. New contents go to a sibling .tmp file, which is synced and then
+ * moved over the target in one step, so a crash leaves either the old file or the new one.
+ * <p>
+ * A {@link Batch} replaces many files with one round of syncs: every temp file is written first,
+ * then all are forced to disk, moved, and each parent directory is synced once.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Replace target with data.
+     * @return bytes written
+     */
+    static long write(File target, byte[] data) throws IOException {
+        Batch batch = new Batch();
+        long written = batch.write(target, data);
+        batch.commit();
+        return written;
+    }
+
+    /**
+     * Sync a temp file the caller has written and move it over target.
+     */
+    static void replace(File temp, File target) throws IOException {
+        Batch batch = new Batch();
+        batch.add(temp, target);
+        batch.commit();
+    }
+
+    static File tempFor(File target) {
+        return new File(target.getPath() + ".tmp");
+    }
+
+    static final class Batch {
+        private final List<File[]> moves = new ArrayList<>();
+        private final List<File> deletions = new ArrayList<>();
+
+        /**
+         * Write data to target's temp file, replacing target on {@link #commit()}.
+         * @return bytes written
+         */
+        long write(File target, byte[] data) throws IOException {
+            File temp = tempFor(target);
+            Files.write(temp.toPath(), data);
+            add(temp, target);
+            return data.length;
+        }
+
+        /**
+         * Replace target with an already written temp file on {@link #commit()}.
+         */
+        void add(File temp, File target) {
+            moves.add(new File[]{temp, target});
+        }
+
+        /**
+         * Delete target on {@link #commit()}.
+         */
+        void delete(File target) {
+            deletions.add(target);
+        }
+
+        boolean isEmpty() {
+            return moves.isEmpty() && deletions.isEmpty();
+        }
+
+        void commit() throws IOException {
+            for (File[] move : moves) {
+                try (FileChannel channel = FileChannel.open(move[0].toPath(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+
+            Set<File> directories = new LinkedHashSet<>();
+            for (File[] move : moves) {
+                try {
+                    Files.move(move[0].toPath(), move[1].toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(move[0].toPath(), move[1].toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                directories.add(move[1].getAbsoluteFile().getParentFile());
+            }
+            for (File target : deletions) {
+                if (Files.deleteIfExists(target.toPath())) {
+                    directories.add(target.getAbsoluteFile().getParentFile());
+                }
+            }
+
+            for (File directory : directories) {
+                syncDirectory(directory.toPath());
+            }
+            moves.clear();
+            deletions.clear();
+        }
+    }
+
+    /**
+     * Make renames in the directory durable. Not every platform can open a directory for syncing,
+     * there the rename is left to the OS.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows cannot open directories as channels
+        }
+    }
+}
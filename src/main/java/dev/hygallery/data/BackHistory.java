@@ -0,0 +1,128 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where each online player was before their last few teleports, for /back. Every player gets a
+ * fixed-size ring of packed coordinates and world ids, so memory per player stays constant however
+ * often they teleport. The oldest entry is overwritten once the ring is full, and the whole history
+ * is dropped when the player disconnects.
+ */
+public final class BackHistory {
+
+    private final WorldTable worlds;
+    private final int capacity;
+    private final ConcurrentHashMap<UUID, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity Positions kept per player, 0 disables the history
+     */
+    BackHistory(WorldTable worlds, int capacity) {
+        this.worlds = worlds;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Remember a position the player is leaving.
+     */
+    public void record(UUID player, double x, double y, double z, String worldName) {
+        if (capacity == 0) {
+            return;
+        }
+        int worldId = worlds.idOf(worldName);
+        rings.computeIfAbsent(player, k -> new Ring(capacity)).push(x, y, z, worldId);
+    }
+
+    /**
+     * @return the most recent position, left in the history, or null if the player has none
+     */
+    public Location peek(UUID player) {
+        Ring ring = rings.get(player);
+        return ring == null ? null : ring.peek(worlds);
+    }
+
+    /**
+     * Take the most recent position out of the history once the player has gone back to it, so the
+     * next /back goes one further back. Does nothing if a newer position was recorded meanwhile.
+     * @return true if the position was removed
+     */
+    public boolean remove(UUID player, Location expected) {
+        Ring ring = rings.get(player);
+        return ring != null && ring.remove(expected, worlds.find(expected.getWorldName()));
+    }
+
+    /**
+     * @return positions currently kept for the player
+     */
+    public int size(UUID player) {
+        Ring ring = rings.get(player);
+        return ring == null ? 0 : ring.size();
+    }
+
+    /**
+     * @return positions kept per player
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Forget a player's history, called when they disconnect.
+     */
+    void clear(UUID player) {
+        rings.remove(player);
+    }
+
+    private static final class Ring {
+        private final double[] coords;
+        private final int[] worldIds;
+        // Slot the next push writes to
+        private int next;
+        private int size;
+
+        Ring(int capacity) {
+            this.coords = new double[capacity * 3];
+            this.worldIds = new int[capacity];
+        }
+
+        synchronized void push(double x, double y, double z, int worldId) {
+            coords[next * 3] = x;
+            coords[next * 3 + 1] = y;
+            coords[next * 3 + 2] = z;
+            worldIds[next] = worldId;
+            next = (next + 1) % worldIds.length;
+            size = Math.min(size + 1, worldIds.length);
+        }
+
+        synchronized Location peek(WorldTable worlds) {
+            if (size == 0) {
+                return null;
+            }
+            int last = (next - 1 + worldIds.length) % worldIds.length;
+            return new Location(new Vector3d(coords[last * 3], coords[last * 3 + 1], coords[last * 3 + 2]),
+                    worlds.nameOf(worldIds[last]));
+        }
+
+        synchronized boolean remove(Location expected, int worldId) {
+            if (size == 0) {
+                return false;
+            }
+            int last = (next - 1 + worldIds.length) % worldIds.length;
+            Vector3d position = expected.getCoords();
+            if (worldIds[last] != worldId || coords[last * 3] != position.x
+                    || coords[last * 3 + 1] != position.y || coords[last * 3 + 2] != position.z) {
+                return false;
+            }
+            next = last;
+            size--;
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
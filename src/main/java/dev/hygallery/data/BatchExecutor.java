@@ -0,0 +1,67 @@
+package dev.hygallery.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs batches on a few daemon threads while the caller keeps reading its input. Submitting blocks
+ * once twice as many batches as threads are waiting, so memory stays bounded by the batch size
+ * however large the input is. Used by the parallel snapshot reader and the bulk importer.
+ */
+final class BatchExecutor implements AutoCloseable {
+
+    private final ExecutorService pool;
+    private final Semaphore inFlight;
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    BatchExecutor(String threadName, int parallelism) {
+        this.pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.inFlight = new Semaphore(parallelism * 2);
+    }
+
+    /**
+     * Queue a batch, waiting while too many are queued. Call from one thread only.
+     */
+    void submit(Runnable batch) {
+        inFlight.acquireUninterruptibly();
+        futures.add(pool.submit(() -> {
+            try {
+                batch.run();
+            } finally {
+                inFlight.release();
+            }
+        }));
+    }
+
+    /**
+     * Wait for every submitted batch.
+     * @param activity What the batches do, for error messages
+     * @throws IOException if a batch failed or the wait was interrupted
+     */
+    void finish(String activity) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while " + activity, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error while " + activity, e.getCause());
+        }
+    }
+
+    /**
+     * Stop the threads, abandoning batches that have not run.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,365 @@
+package dev.hygallery.data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Read-only, memory-mapped binary snapshot of every player's homes (homeData.bin).
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header   magic, version, playerCount, stringCount (ints), homeCount, stringTableOffset, crc32 (longs)
+ * index    playerCount x [uuid msb, uuid lsb (longs), firstHome, homeCount (ints)], sorted by uuid
+ * homes    homeCount x [nameId, worldId (ints), x, y, z (doubles)]
+ * strings  stringCount x [byte length (int), UTF-8 bytes]
+ * </pre>
+ * The checksum covers everything after the header. Only the string table is decoded on open;
+ * a player's records are decoded the first time that player is looked up.
+ */
+final class BinaryHomeSnapshot {
+
+    private static final int MAGIC = 0x4F484231; // "OHB1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int HOME_RECORD_BYTES = 32;
+
+    /**
+     * Order of the player index. Spelled out rather than relying on UUID.compareTo.
+     */
+    static final Comparator<UUID> UUID_ORDER = (a, b) -> compare(a.getMostSignificantBits(),
+            a.getLeastSignificantBits(), b.getMostSignificantBits(), b.getLeastSignificantBits());
+
+    private final MappedByteBuffer buffer;
+    private final int playerCount;
+    private final long homeCount;
+    private final int homesOffset;
+    private final String[] strings;
+    // String table id to WorldTable id, filled on first use. Racy writes are benign, the value is always the same
+    private final int[] worldIds;
+
+    private BinaryHomeSnapshot(MappedByteBuffer buffer, int playerCount, long homeCount, String[] strings) {
+        this.buffer = buffer;
+        this.playerCount = playerCount;
+        this.homeCount = homeCount;
+        this.homesOffset = HEADER_BYTES + playerCount * INDEX_ENTRY_BYTES;
+        this.strings = strings;
+        this.worldIds = new int[strings.length];
+        Arrays.fill(worldIds, -1);
+    }
+
+    /**
+     * Map and validate a snapshot file.
+     * @param dedup applied to every string in the table so names are shared with the rest of the store
+     */
+    static BinaryHomeSnapshot open(File file, UnaryOperator<String> dedup) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Binary snapshot too small: " + size + " bytes");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot larger than 2 GiB is not supported");
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a home snapshot file: " + file.getName());
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+
+            int playerCount = buffer.getInt(8);
+            int stringCount = buffer.getInt(12);
+            long homeCount = buffer.getLong(16);
+            long stringTableOffset = buffer.getLong(24);
+            long expectedCrc = buffer.getLong(32);
+
+            long expectedTableOffset = HEADER_BYTES + (long) playerCount * INDEX_ENTRY_BYTES + homeCount * HOME_RECORD_BYTES;
+            if (playerCount < 0 || stringCount < 0 || stringTableOffset != expectedTableOffset || stringTableOffset > size) {
+                throw new IOException("Corrupt binary snapshot header");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Binary snapshot checksum mismatch");
+            }
+
+            ByteBuffer table = buffer.duplicate().position((int) stringTableOffset);
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                byte[] bytes = new byte[table.getInt()];
+                table.get(bytes);
+                strings[i] = dedup.apply(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            return new BinaryHomeSnapshot(buffer, playerCount, homeCount, strings);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt binary snapshot", e);
+        }
+    }
+
+    int getPlayerCount() {
+        return playerCount;
+    }
+
+    long getHomeCount() {
+        return homeCount;
+    }
+
+    /**
+     * @return the player's homes, or null if the snapshot has no entry for them
+     */
+    PlayerHomes decode(UUID uuid, WorldTable worlds) {
+        int index = indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return index < 0 ? null : decodeAt(index, worlds);
+    }
+
+    /**
+     * Decode every player, in uuid order. Used to migrate to another format.
+     */
+    void forEach(WorldTable worlds, BiConsumer<UUID, PlayerHomes> consumer) {
+        for (int i = 0; i < playerCount; i++) {
+            consumer.accept(uuidAt(i), decodeAt(i, worlds));
+        }
+    }
+
+    private UUID uuidAt(int index) {
+        int entry = HEADER_BYTES + index * INDEX_ENTRY_BYTES;
+        return new UUID(buffer.getLong(entry), buffer.getLong(entry + 8));
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int low = 0;
+        int high = playerCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = HEADER_BYTES + mid * INDEX_ENTRY_BYTES;
+            int cmp = compare(buffer.getLong(entry), buffer.getLong(entry + 8), msb, lsb);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private PlayerHomes decodeAt(int index, WorldTable worlds) {
+        int entry = HEADER_BYTES + index * INDEX_ENTRY_BYTES;
+        int first = buffer.getInt(entry + 16);
+        int count = buffer.getInt(entry + 20);
+
+        String[] names = new String[count];
+        double[] coords = new double[count * 3];
+        int[] homeWorlds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int record = homesOffset + (first + i) * HOME_RECORD_BYTES;
+            names[i] = strings[buffer.getInt(record)];
+            homeWorlds[i] = worldId(buffer.getInt(record + 4), worlds);
+            coords[i * 3] = buffer.getDouble(record + 8);
+            coords[i * 3 + 1] = buffer.getDouble(record + 16);
+            coords[i * 3 + 2] = buffer.getDouble(record + 24);
+        }
+        return PlayerHomes.of(names, coords, homeWorlds, count);
+    }
+
+    private int worldId(int stringId, WorldTable worlds) {
+        int id = worldIds[stringId];
+        if (id < 0) {
+            id = worlds.idOf(strings[stringId]);
+            worldIds[stringId] = id;
+        }
+        return id;
+    }
+
+    private static int compare(long msbA, long lsbA, long msbB, long lsbB) {
+        // Same order as UUID.compareTo
+        int cmp = Long.compare(msbA, msbB);
+        return cmp != 0 ? cmp : Long.compare(lsbA, lsbB);
+    }
+
+    /**
+     * Write a snapshot that merges live players over a previous snapshot.
+     * Live players with no homes are dropped as deleted; every other player in {@code previous}
+     * is copied record for record without being decoded.
+     * @param liveKeys players held in memory, sorted by {@link #UUID_ORDER}
+     * @param liveHomes homes for each entry of liveKeys
+     * @param previous snapshot currently backing undecoded players, or null
+     * @return number of players written
+     */
+    static int write(File target, UUID[] liveKeys, PlayerHomes[] liveHomes,
+                     BinaryHomeSnapshot previous, WorldTable worlds) throws IOException {
+        // Pass 1: count players and homes so the index can be written ahead of the records
+        int players = 0;
+        long homes = 0;
+        MergeCursor cursor = new MergeCursor(liveKeys, liveHomes, previous);
+        while (cursor.next()) {
+            players++;
+            homes += cursor.homeCount();
+        }
+
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+
+            // Index
+            long first = 0;
+            cursor = new MergeCursor(liveKeys, liveHomes, previous);
+            while (cursor.next()) {
+                out.writeLong(cursor.uuid.getMostSignificantBits());
+                out.writeLong(cursor.uuid.getLeastSignificantBits());
+                out.writeInt((int) first);
+                out.writeInt(cursor.homeCount());
+                first += cursor.homeCount();
+            }
+
+            // Home records, assigning string ids as names and worlds are first seen
+            Map<String, Integer> stringIds = new LinkedHashMap<>();
+            int[] remap = new int[previous == null ? 0 : previous.strings.length];
+            Arrays.fill(remap, -1);
+            cursor = new MergeCursor(liveKeys, liveHomes, previous);
+            while (cursor.next()) {
+                if (cursor.liveHomes != null) {
+                    PlayerHomes playerHomes = cursor.liveHomes;
+                    for (int i = 0; i < playerHomes.size(); i++) {
+                        out.writeInt(stringId(stringIds, playerHomes.name(i)));
+                        out.writeInt(stringId(stringIds, worlds.nameOf(playerHomes.worldId(i))));
+                        out.writeDouble(playerHomes.x(i));
+                        out.writeDouble(playerHomes.y(i));
+                        out.writeDouble(playerHomes.z(i));
+                    }
+                } else {
+                    int entry = HEADER_BYTES + cursor.previousIndex * INDEX_ENTRY_BYTES;
+                    int start = previous.buffer.getInt(entry + 16);
+                    int count = previous.buffer.getInt(entry + 20);
+                    for (int i = 0; i < count; i++) {
+                        int record = previous.homesOffset + (start + i) * HOME_RECORD_BYTES;
+                        out.writeInt(remap(previous, remap, stringIds, previous.buffer.getInt(record)));
+                        out.writeInt(remap(previous, remap, stringIds, previous.buffer.getInt(record + 4)));
+                        out.writeDouble(previous.buffer.getDouble(record + 8));
+                        out.writeDouble(previous.buffer.getDouble(record + 16));
+                        out.writeDouble(previous.buffer.getDouble(record + 24));
+                    }
+                }
+            }
+
+            // String table
+            for (String value : stringIds.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(players);
+            header.putInt(stringIds.size());
+            header.putLong(homes);
+            header.putLong(HEADER_BYTES + (long) players * INDEX_ENTRY_BYTES + homes * HOME_RECORD_BYTES);
+            header.putLong(crc.getValue());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        return players;
+    }
+
+    private static int stringId(Map<String, Integer> stringIds, String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private static int remap(BinaryHomeSnapshot previous, int[] remap, Map<String, Integer> stringIds, int oldId) {
+        if (remap[oldId] < 0) {
+            remap[oldId] = stringId(stringIds, previous.strings[oldId]);
+        }
+        return remap[oldId];
+    }
+
+    /**
+     * Walks live players and previous snapshot entries together in UUID order, live entries winning.
+     */
+    private static final class MergeCursor {
+        private final UUID[] liveKeys;
+        private final PlayerHomes[] live;
+        private final BinaryHomeSnapshot previous;
+        private int liveIndex;
+        private int nextPrevious;
+
+        UUID uuid;
+        PlayerHomes liveHomes;
+        int previousIndex;
+
+        MergeCursor(UUID[] liveKeys, PlayerHomes[] live, BinaryHomeSnapshot previous) {
+            this.liveKeys = liveKeys;
+            this.live = live;
+            this.previous = previous;
+        }
+
+        boolean next() {
+            int previousCount = previous == null ? 0 : previous.playerCount;
+            while (liveIndex < liveKeys.length || nextPrevious < previousCount) {
+                UUID liveKey = liveIndex < liveKeys.length ? liveKeys[liveIndex] : null;
+                UUID previousKey = nextPrevious < previousCount ? previous.uuidAt(nextPrevious) : null;
+                int cmp = liveKey == null ? 1 : previousKey == null ? -1 : UUID_ORDER.compare(liveKey, previousKey);
+
+                if (cmp <= 0) {
+                    PlayerHomes playerHomes = live[liveIndex++];
+                    if (cmp == 0) {
+                        nextPrevious++;
+                    }
+                    if (playerHomes == null || playerHomes.isEmpty()) {
+                        continue;
+                    }
+                    uuid = liveKey;
+                    liveHomes = playerHomes;
+                    return true;
+                }
+
+                uuid = previousKey;
+                liveHomes = null;
+                previousIndex = nextPrevious++;
+                return true;
+            }
+            return false;
+        }
+
+        int homeCount() {
+            if (liveHomes != null) {
+                return liveHomes.size();
+            }
+            return previous.buffer.getInt(HEADER_BYTES + previousIndex * INDEX_ENTRY_BYTES + 20);
+        }
+    }
+}
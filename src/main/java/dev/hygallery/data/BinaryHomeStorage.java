@@ -0,0 +1,121 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * homeData.bin, memory-mapped at startup. Players are decoded from the mapping on first access,
+ * and saves merge the decoded players over the current file.
+ */
+final class BinaryHomeStorage implements HomeStorage {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final HomeTable table;
+    private final File dataFile;
+    private final File binaryFile;
+    private volatile BinaryHomeSnapshot binary;
+    private final LongAdder bytesWritten = new LongAdder();
+
+    BinaryHomeStorage(HomeTable table, File dataFolder) {
+        this.table = table;
+        this.dataFile = new File(dataFolder, "homeData.json");
+        this.binaryFile = new File(dataFolder, "homeData.bin");
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public boolean isLoadCheap() {
+        return true;
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (binaryFile.exists()) {
+            this.binary = BinaryHomeSnapshot.open(binaryFile, table::dedupName);
+            LOGGER.atInfo().log("Mapped binary snapshot with " + binary.getPlayerCount() + " players and " +
+                    binary.getHomeCount() + " homes, players decode on first access");
+        } else if (dataFile.exists()) {
+            migrateFromJson();
+        }
+    }
+
+    @Override
+    public PlayerHomes loadPlayer(UUID uuid) {
+        BinaryHomeSnapshot snapshot = binary;
+        PlayerHomes decoded = snapshot == null ? null : snapshot.decode(uuid, table.worlds());
+        return decoded == null ? PlayerHomes.EMPTY : decoded;
+    }
+
+    /**
+     * Write homeData.bin by merging decoded players over the current snapshot, then remap it.
+     * Players that were never decoded are copied from the old file without being touched.
+     */
+    @Override
+    public synchronized boolean flush() {
+        List<Map.Entry<UUID, PlayerHomes>> entries = new ArrayList<>(table.map().entrySet());
+        entries.sort(Map.Entry.comparingByKey(BinaryHomeSnapshot.UUID_ORDER));
+        UUID[] keys = new UUID[entries.size()];
+        PlayerHomes[] values = new PlayerHomes[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).getKey();
+            values[i] = entries.get(i).getValue();
+        }
+
+        File tempFile = AtomicFiles.tempFor(binaryFile);
+        try {
+            int players = BinaryHomeSnapshot.write(tempFile, keys, values, binary, table.worlds());
+            AtomicFiles.replace(tempFile, binaryFile);
+            bytesWritten.add(binaryFile.length());
+            this.binary = BinaryHomeSnapshot.open(binaryFile, table::dedupName);
+            LOGGER.atInfo().log("Saved binary snapshot with " + players + " players");
+            return true;
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving binary snapshot");
+            return false;
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<UUID, PlayerHomes> consumer) {
+        BinaryHomeSnapshot snapshot = binary;
+        if (snapshot != null) {
+            snapshot.forEach(table.worlds(), consumer);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void migrateFromJson() throws IOException {
+        LOGGER.atInfo().log("Migrating homeData.json to binary snapshot...");
+        JsonHomeStorage.read(dataFile, 1, table::putLoaded);
+        if (!flush()) {
+            throw new IOException("Could not write binary snapshot, homeData.json left in place");
+        }
+        JsonHomeStorage.retire(dataFile, table.map().size());
+    }
+}
@@ -0,0 +1,25 @@
+package dev.hygallery.data;
+
+/**
+ * What an import does when a player already has a home with the imported name.
+ */
+public enum ConflictPolicy {
+    /** Keep the existing home and drop the imported one */
+    SKIP,
+    /** Replace the existing home */
+    OVERWRITE,
+    /** Store the imported home as name-2, name-3, ... */
+    RENAME;
+
+    /**
+     * @return the policy with the given name, ignoring case, or null if there is none
+     */
+    public static ConflictPolicy parse(String name) {
+        for (ConflictPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
@@ -1,30 +1,110 @@
 package dev.hygallery.data;
 
-import com.google.gson.*;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Vector3d;
-import org.jetbrains.annotations.NotNull;
+import dev.hygallery.audit.AuditLog;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+import dev.hygallery.metrics.LatencyHistogram;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 
+/**
+ * Owns every player's homes and hands their persistence to a {@link HomeStorage} backend.
+ * <p>
+ * Safe to call from any thread. Each player's homes are an immutable {@link PlayerHomes} that is
+ * replaced copy-on-write inside {@link ConcurrentHashMap#compute}, so writers only contend per player
+ * and readers never lock. Everything handed back to callers is an immutable snapshot.
+ * <p>
+ * Players are keyed by {@link UUID} (two longs), world names are interned in a {@link WorldTable},
+ * home names are deduplicated and coordinates are packed into primitive arrays.
+ */
 public class DataHandler {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    private final Map<String, Map<String, Location>> homes;
-    private final File dataFile;
-    private final Gson gson;
+    // A lazily loaded player evicted right after loading is reloaded at most this many times per call
+    private static final int MAX_LOAD_ATTEMPTS = 3;
 
-    public DataHandler() {
+    // Outcomes of putHome
+    static final int PUT_FAILED = -1;
+    static final int PUT_SKIPPED = 0;
+    static final int PUT_STORED = 1;
+    static final int PUT_RENAMED = 2;
+
+    private static final long EXPORT_PROGRESS_STEP = 50_000;
+
+    private final HomeTable table = new HomeTable();
+    private final ConcurrentHashMap<UUID, PlayerHomes> homes = table.map();
+    private final WorldTable worlds = table.worlds();
+    private final PluginConfig config;
+    private final HomeStorage storage;
+    // Null when disabled in the config
+    private final HomeSpatialIndex spatialIndex;
+    // Eager storages index at startup, lazy ones on the first area query. Mutations skip the index until it starts.
+    private volatile boolean indexStarted;
+    private final CompletableFuture<Void> indexBuilt = new CompletableFuture<>();
+    // Players changed while the index is being built, re-indexed once it is done. Guarded by spatialIndex
+    private Set<UUID> indexTouched;
+    // Null when disabled in the config
+    private final AuditLog audit;
+    private final HomeBackups backups;
+    private final PublicHomeDirectory publicHomes;
+    private final BackHistory backHistory;
+    private final ScheduledExecutorService backupScheduler;
+    // Bulk admin work that loads many players, so it neither blocks command threads nor the common pool
+    private final ExecutorService adminTasks;
+
+    // Write-behind state: mutations flip the flag, the flusher clears it and flushes the storage
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+
+    // Lazy storages: homes only caches loaded players, offline players are evicted least-recently-used first
+    private ExecutorService loader;
+    private final Map<UUID, CompletableFuture<Void>> pendingLoads = new ConcurrentHashMap<>();
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<UUID, Boolean> offlineLru = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final HomeMetrics metrics = new HomeMetrics();
+    private final LatencyHistogram loadTime = metrics.histogram("storage.load");
+    private final LatencyHistogram playerLoadTime = metrics.histogram("storage.loadPlayer");
+    private final LatencyHistogram saveTime = metrics.histogram("storage.save");
+
+    // Completed once the store is open, never exceptionally
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    public DataHandler(PluginConfig config) {
+        this(config, new File("plugins/openhomes"));
+    }
+
+    /**
+     * @param config Plugin settings
+     * @param dataFolder Folder holding the home data, created if missing
+     */
+    public DataHandler(PluginConfig config, File dataFolder) {
+        this(config, dataFolder, false);
+    }
+
+    /**
+     * @param config Plugin settings
+     * @param dataFolder Folder holding the home data, created if missing
+     * @param background Load the homes on a background thread and return right away. Calls that need
+     *                   homes wait for the load, commands should check {@link #awaitReady()} first.
+     */
+    public DataHandler(PluginConfig config, File dataFolder, boolean background) {
         LOGGER.atInfo().log("DataHandler constructor started");
 
-        this.homes = new HashMap<>();
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.config = config;
 
         // Create data directory
-        File dataFolder = new File("plugins/openhomes");
-
         LOGGER.atInfo().log("Data folder path: " + dataFolder.getAbsolutePath());
 
         if (!dataFolder.exists()) {
@@ -38,30 +118,536 @@ public class DataHandler {
             LOGGER.atInfo().log("Data folder already exists");
         }
 
-        this.dataFile = new File(dataFolder, "homeData.json");
-        LOGGER.atInfo().log("Data file path: " + dataFile.getAbsolutePath());
+        // Also runs journal compaction and eviction, so it exists even without write-behind
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OpenHomes-Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.storage = createStorage(dataFolder);
+        this.spatialIndex = config.isSpatialIndex() ? new HomeSpatialIndex(worlds) : null;
+        this.audit = config.isAudit() ? new AuditLog(config, new File(dataFolder, "audit"), metrics) : null;
+        this.backups = new HomeBackups(this, new File(dataFolder, "backups"), config.getBackupsKept());
+        this.publicHomes = new PublicHomeDirectory(new File(dataFolder, "public-homes.json"), config.getMaxPublicHomes());
+        this.backHistory = new BackHistory(worlds, config.getBackHistorySize());
+        this.adminTasks = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "OpenHomes-Admin");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (storage.isLazy() && !storage.isLoadCheap()) {
+            this.loader = Executors.newFixedThreadPool(2, r -> {
+                Thread thread = new Thread(r, "OpenHomes-Loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        if (background) {
+            Thread thread = new Thread(this::load, "OpenHomes-Startup");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            load();
+        }
+
+        if (config.isWriteBehind()) {
+            int intervalSeconds = config.getFlushIntervalSeconds();
+            flusher.scheduleWithFixedDelay(this::flushIfDirty, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            LOGGER.atInfo().log("Write-behind enabled, flushing every " + intervalSeconds + "s");
+        }
+
+        // Visits change the directory often, so it is saved on a timer even without write-behind
+        int publicSeconds = config.getFlushIntervalSeconds();
+        flusher.scheduleWithFixedDelay(publicHomes::saveIfDirty, publicSeconds, publicSeconds, TimeUnit.SECONDS);
 
+        metrics.gauge("store.players", homes::size);
+        metrics.gauge("store.homes", this::getHomeCount);
+        metrics.gauge("storage.bytesWritten", storage::getBytesWritten);
+        metrics.gauge("cache.hits", cacheHits::sum);
+        metrics.gauge("cache.misses", cacheMisses::sum);
+        if (spatialIndex != null) {
+            metrics.gauge("spatial.homes", spatialIndex::size);
+        }
+        int dumpSeconds = config.getMetricsDumpIntervalSeconds();
+        if (dumpSeconds > 0) {
+            File metricsFile = new File(dataFolder, "metrics.txt");
+            flusher.scheduleWithFixedDelay(() -> metrics.dump(metricsFile), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+
+        int backupMinutes = config.getBackupIntervalMinutes();
+        if (backupMinutes > 0) {
+            // Own thread, a backup of a large store must not hold up flushes
+            this.backupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "OpenHomes-Backup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            backupScheduler.scheduleWithFixedDelay(this::backupQuietly, backupMinutes, backupMinutes, TimeUnit.MINUTES);
+            LOGGER.atInfo().log("Backing up homes every " + backupMinutes + " minutes, keeping " +
+                    config.getBackupsKept());
+        } else {
+            this.backupScheduler = null;
+        }
+    }
+
+    /**
+     * Open the storage, index it if every home is in memory anyway and read the public directory, then release everything waiting on
+     * {@link #ready}. A storage that fails to open leaves the store empty, as before it was loaded.
+     */
+    private void load() {
+        long loadStart = System.nanoTime();
         try {
-            loadHomes();
-            int totalPlayers = homes.size();
-            int totalHomes = homes.values().stream().mapToInt(Map::size).sum();
-            LOGGER.atInfo().log("DataHandler initialized successfully with " + totalPlayers +
-                                    "players and " + totalHomes + " total homes");
+            storage.open();
+            loadTime.recordSince(loadStart);
+            if (storage.isLazy()) {
+                LOGGER.atInfo().log("DataHandler initialized with " + storage.getName() +
+                        " storage, player homes load on demand");
+            } else {
+                LOGGER.atInfo().log("DataHandler initialized successfully with " + homes.size() +
+                                        " players and " + getHomeCount() + " total homes (~" +
+                                        estimateBytesPerHome() + " bytes per home)");
+            }
         } catch (Exception e) {
-            LOGGER.atSevere().withCause(e).log("Error during loadHomes()");
+            LOGGER.atSevere().withCause(e).log("Error opening " + storage.getName() + " home storage");
+        }
+
+        try {
+            if (spatialIndex != null && !storage.isLazy()) {
+                ensureSpatialIndex();
+            }
+            publicHomes.load();
+            storage.watch(this::applyStored);
+        } catch (RuntimeException e) {
+            LOGGER.atSevere().withCause(e).log("Error preparing the home store, some homes may be missing");
+        } finally {
+            long elapsed = System.nanoTime() - loadStart;
+            metrics.histogram("storage.ready").record(elapsed);
+            LOGGER.atInfo().log("Homes ready after " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+            ready.complete(null);
+        }
+    }
+
+    /**
+     * @return true once the homes have finished loading
+     */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Wait up to the configured load wait for the homes to finish loading.
+     * @return true if they are ready, false if they are still loading
+     */
+    public boolean awaitReady() {
+        if (ready.isDone()) {
+            return true;
+        }
+        try {
+            ready.get(config.getLoadWaitMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // ready never fails
+            return true;
+        }
+    }
+
+    /**
+     * @return future completed once the homes have finished loading
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+
+    /**
+     * Block until the homes have finished loading. Guards calls that read the whole store.
+     */
+    private void waitUntilReady() {
+        if (!ready.isDone()) {
+            ready.join();
+        }
+    }
+
+    /**
+     * Build the spatial index if it isn't yet, or wait for the build another thread started. With a
+     * lazy storage this reads every stored player, so it only happens once an area query needs it.
+     */
+    private void ensureSpatialIndex() {
+        if (indexBuilt.isDone()) {
+            return;
+        }
+        boolean build;
+        synchronized (spatialIndex) {
+            build = !indexStarted;
+            if (build) {
+                indexTouched = new HashSet<>();
+                indexStarted = true;
+            }
+        }
+        if (build) {
+            buildSpatialIndex();
+        }
+        indexBuilt.join();
+    }
+
+    /**
+     * @return true if a change to the player's homes must update the spatial index. Call inside the
+     *         compute that changes them.
+     */
+    private boolean indexing(UUID playerId) {
+        if (spatialIndex == null || !indexStarted) {
+            return false;
+        }
+        if (!indexBuilt.isDone()) {
+            synchronized (spatialIndex) {
+                if (indexTouched != null) {
+                    indexTouched.add(playerId);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index every stored home, including players a lazy storage has not loaded. Players changed
+     * meanwhile may have been indexed from stale stored homes, so they are indexed again at the end.
+     * If reading the storage fails the index is still used, but may miss homes.
+     */
+    private void buildSpatialIndex() {
+        long start = System.nanoTime();
+        Set<UUID> fromMemory = new HashSet<>();
+        try {
+            // Inside each player's compute, so a change made before indexing started is not missed
+            for (UUID uuid : homes.keySet()) {
+                homes.computeIfPresent(uuid, (k, playerHomes) -> {
+                    spatialIndex.addAll(k, playerHomes);
+                    fromMemory.add(k);
+                    return playerHomes;
+                });
+            }
+            if (storage.isLazy()) {
+                storage.forEachStored((uuid, playerHomes) -> {
+                    if (!fromMemory.contains(uuid)) {
+                        spatialIndex.addAll(uuid, playerHomes);
+                    }
+                });
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atSevere().withCause(e).log("Error reading stored homes, area queries may miss some homes");
+        } finally {
+            Set<UUID> touched;
+            synchronized (spatialIndex) {
+                touched = indexTouched;
+                indexTouched = null;
+            }
+            reindex(touched);
+            indexBuilt.complete(null);
+        }
+        LOGGER.atInfo().log("Indexed " + spatialIndex.size() + " homes by position in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    private void reindex(Set<UUID> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        spatialIndex.removeOwners(players);
+        for (UUID uuid : players) {
+            homes.compute(uuid, (k, playerHomes) -> {
+                PlayerHomes current = playerHomes;
+                if (current == null && storage.isLazy()) {
+                    try {
+                        current = storage.loadPlayer(k);
+                    } catch (IOException e) {
+                        LOGGER.atSevere().withCause(e).log("Error reading homes for UUID: " + k + ", area queries may miss them");
+                        return null;
+                    }
+                }
+                if (current != null) {
+                    spatialIndex.addAll(k, current);
+                }
+                return playerHomes;
+            });
+        }
+    }
+
+    private HomeStorage createStorage(File dataFolder) {
+        switch (config.getStorage()) {
+            case "journal":
+                return new JsonHomeStorage(table, dataFolder, config, flusher, true);
+            case "sharded":
+                return new ShardedHomeStorage(table, dataFolder);
+            case "binary":
+                return new BinaryHomeStorage(table, dataFolder);
+            case "sqlite":
+                return new SqliteHomeStorage(table, dataFolder);
+            case "shared":
+                return new SharedHomeStorage(table, dataFolder, config);
+            case "json":
+                return new JsonHomeStorage(table, dataFolder, config, flusher, false);
+            default:
+                LOGGER.atWarning().log("Unknown storage '" + config.getStorage() + "', using json");
+                return new JsonHomeStorage(table, dataFolder, config, flusher, false);
+        }
+    }
+
+    /**
+     * Make sure a player's homes are in memory. Only does work with lazy storages: the read
+     * happens on a loader thread so world threads never wait on disk, or in place when the
+     * storage only decodes from memory.
+     * @param uuid Player UUID
+     * @return future completed once the player's homes can be read without IO
+     */
+    public CompletableFuture<Void> ensureLoaded(String uuid) {
+        if (!ready.isDone()) {
+            UUID playerId = key(uuid);
+            return ready.thenCompose(ignored -> ensureLoaded(playerId));
+        }
+        if (!storage.isLazy()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ensureLoaded(key(uuid));
+    }
+
+    private CompletableFuture<Void> ensureLoaded(UUID uuid) {
+        if (!ready.isDone()) {
+            return ready.thenCompose(ignored -> ensureLoaded(uuid));
+        }
+        if (!storage.isLazy()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (homes.containsKey(uuid)) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (storage.isLoadCheap()) {
+            cacheMisses.increment();
+            long start = System.nanoTime();
+            try {
+                homes.putIfAbsent(uuid, storage.loadPlayer(uuid));
+                playerLoadTime.recordSince(start);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                LOGGER.atSevere().withCause(e).log("Error loading homes for UUID: " + uuid);
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<Void> load = new CompletableFuture<>();
+        CompletableFuture<Void> existing = pendingLoads.putIfAbsent(uuid, load);
+        if (existing != null) {
+            return existing;
+        }
+
+        cacheMisses.increment();
+        loader.execute(() -> {
+            try {
+                loadPlayer(uuid);
+                load.complete(null);
+            } catch (Throwable t) {
+                LOGGER.atSevere().withCause(t).log("Error loading homes for UUID: " + uuid);
+                load.completeExceptionally(t);
+            } finally {
+                pendingLoads.remove(uuid, load);
+            }
+        });
+        return load;
+    }
+
+    /**
+     * Called when a player joins: marks them online, starts loading their homes and points
+     * owner:home lookups for their public homes at their current name.
+     * @param uuid Player UUID
+     * @param name Player name
+     */
+    public void playerJoined(String uuid, String name) {
+        UUID playerId = key(uuid);
+        onlinePlayers.add(playerId);
+        synchronized (offlineLru) {
+            offlineLru.remove(playerId);
+        }
+        // Players joining during startup are loaded once the store is ready
+        ensureLoaded(playerId);
+        ready.thenRun(() -> publicHomes.ownerNamed(playerId, name));
+    }
+
+    /**
+     * Called when a player leaves: their homes become eligible for eviction and their /back history is dropped.
+     * @param uuid Player UUID
+     */
+    public void playerLeft(String uuid) {
+        UUID playerId = key(uuid);
+        onlinePlayers.remove(playerId);
+        backHistory.clear(playerId);
+        if (storage.supportsEviction()) {
+            ready.thenRun(() -> touchOffline(playerId));
         }
     }
 
+    /**
+     * @return number of lookups that found the player's homes already in memory
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return number of lookups that had to read the player's homes from disk
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return number of players whose homes are currently held in memory
+     */
+    public int getCachedPlayerCount() {
+        return homes.size();
+    }
+
+    /**
+     * @return number of homes currently held in memory
+     */
+    public int getHomeCount() {
+        return table.homeCount();
+    }
+
+    /**
+     * Estimate retained heap per home, counting the map entry, UUID key, packed arrays and
+     * a share of the deduplicated name strings. Walks every player, so meant for admin use.
+     * @return estimated bytes per home, 0 if there are no homes
+     */
+    public long estimateBytesPerHome() {
+        return table.estimateBytesPerHome();
+    }
+
+    /**
+     * @return plugin metrics, shared with the commands
+     */
+    public HomeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return config name of the storage backend in use
+     */
+    public String getStorageName() {
+        return storage.getName();
+    }
+
+    /**
+     * @return the table that maps world names to the ids homes are stored with
+     */
+    public WorldTable getWorldTable() {
+        return worlds;
+    }
+
+
     /**
      * Set a named home for a player
      * @param uuid Player UUID
      * @param homeName Name of the home (e.g., "home", "base", "farm")
      * @param location Location of the home
+     * @return false if the player's existing homes could not be loaded and nothing was changed
+     */
+    public boolean setHome(String uuid, String homeName, Location location) {
+        Vector3d coords = location.getCoords();
+        if (putHome(key(uuid), homeName, coords.x, coords.y, coords.z, location.getWorldName(),
+                ConflictPolicy.OVERWRITE, AuditLog.Action.SET) == PUT_FAILED) {
+            return false;
+        }
+
+        markDirty();
+        return true;
+    }
+
+    /**
+     * Store a home, settling a clash with an existing home of the same name by the policy.
+     * Leaves marking the store dirty to the caller, so bulk imports can do it once per batch.
+     * @return PUT_STORED, PUT_RENAMED, PUT_SKIPPED, or PUT_FAILED if the player's homes could not be loaded
+     */
+    int putHome(UUID playerId, String homeName, double x, double y, double z, String worldName,
+                ConflictPolicy policy, AuditLog.Action action) {
+        String name = table.dedupName(homeName);
+        int worldId = worlds.idOf(worldName);
+        boolean lazy = storage.isLazy();
+
+        for (int attempt = 0; ; attempt++) {
+            if (attempt == MAX_LOAD_ATTEMPTS || !requireLoaded(playerId)) {
+                return PUT_FAILED;
+            }
+
+            int[] outcome = {PUT_FAILED};
+            Lock lock = storage.mutationLock();
+            if (lock != null) {
+                lock.lock();
+            }
+            try {
+                homes.compute(playerId, (k, playerHomes) -> {
+                    if (playerHomes == null && lazy) {
+                        // Evicted since requireLoaded, reload instead of overwriting stored homes
+                        return null;
+                    }
+
+                    PlayerHomes current = playerHomes == null ? PlayerHomes.EMPTY : playerHomes;
+                    String target = name;
+                    int previous = current.indexOf(name);
+                    outcome[0] = PUT_STORED;
+                    if (previous >= 0 && policy == ConflictPolicy.SKIP) {
+                        outcome[0] = PUT_SKIPPED;
+                        return playerHomes;
+                    } else if (previous >= 0 && policy == ConflictPolicy.RENAME) {
+                        target = table.dedupName(freeName(current, name));
+                        previous = -1;
+                        outcome[0] = PUT_RENAMED;
+                    }
+
+                    PlayerHomes updated = current.with(target, x, y, z, worldId);
+                    storage.recordSet(k, target, x, y, z, worldName);
+                    if (previous >= 0) {
+                        publicHomes.moved(k, target, x, y, z, worldName);
+                    }
+                    if (indexing(k)) {
+                        if (previous >= 0) {
+                            spatialIndex.remove(current.worldId(previous), k, target, current.x(previous), current.z(previous));
+                        }
+                        spatialIndex.add(worldId, k, target, x, y, z);
+                    }
+                    if (audit != null) {
+                        audit.recordSet(action, k, target, x, y, z, worldName);
+                    }
+                    return updated;
+                });
+            } finally {
+                if (lock != null) {
+                    lock.unlock();
+                }
+            }
+
+            if (outcome[0] != PUT_FAILED) {
+                return outcome[0];
+            }
+        }
+    }
+
+    /**
+     * @return the first of name-2, name-3, ... the player does not use yet
      */
-    public void setHome(String uuid, String homeName, Location location) {
-        homes.computeIfAbsent(uuid, k -> new HashMap<>()).put(homeName, location);
-        saveHomes();
-        LOGGER.atInfo().log("Set home '" + homeName + "' - UUID: " + uuid);
+    private static String freeName(PlayerHomes playerHomes, String name) {
+        for (int suffix = 2; ; suffix++) {
+            String candidate = name + "-" + suffix;
+            if (playerHomes.indexOf(candidate) < 0) {
+                return candidate;
+            }
+        }
     }
 
     /**
@@ -71,27 +657,46 @@ public class DataHandler {
      * @return Location or null if not found
      */
     public Location getHome(String uuid, String homeName) {
-        Map<String, Location> playerHomes = homes.get(uuid);
-        if (playerHomes == null) {
-            LOGGER.atInfo().log("No homes found for UUID: " + uuid);
+        PlayerHomes playerHomes = getLoadedHomes(key(uuid));
+        int index = playerHomes == null ? -1 : playerHomes.indexOf(homeName);
+        if (index < 0) {
             return null;
         }
-
-        Location home = playerHomes.get(homeName);
-        if (home == null) {
-            LOGGER.atInfo().log("No home '" + homeName + "' found for UUID: " + uuid);
-        }
-        return home;
+        return playerHomes.location(index, worlds);
     }
 
     /**
      * Get list of home names for a player
      * @param uuid Player UUID
-     * @return Set of home names
+     * @return Immutable set of home names
      */
     public Set<String> getHomeNames(String uuid) {
-        Map<String, Location> playerHomes = homes.get(uuid);
-        return playerHomes != null ? playerHomes.keySet() : Collections.emptySet();
+        PlayerHomes playerHomes = getLoadedHomes(key(uuid));
+        return playerHomes != null ? playerHomes.names() : Collections.emptySet();
+    }
+
+    /**
+     * Complete a partly typed home name
+     * @param uuid Player UUID
+     * @param prefix Start of the home name, lowercase
+     * @param limit Maximum number of names to return
+     * @return matching home names in sorted order
+     */
+    public List<String> completeHomeNames(String uuid, String prefix, int limit) {
+        PlayerHomes playerHomes = getLoadedHomes(key(uuid));
+        return playerHomes != null ? HomeNameMatcher.complete(playerHomes, prefix, limit) : Collections.emptyList();
+    }
+
+    /**
+     * Suggest home names for a name that does not exist: completions first, then close misspellings
+     * @param uuid Player UUID
+     * @param homeName The name that was not found, lowercase
+     * @param limit Maximum number of names to return
+     * @return suggested home names, empty if none are close
+     */
+    public List<String> suggestHomeNames(String uuid, String homeName, int limit) {
+        PlayerHomes playerHomes = getLoadedHomes(key(uuid));
+        return playerHomes != null ? HomeNameMatcher.suggest(playerHomes, homeName, limit) : Collections.emptyList();
     }
 
     /**
@@ -101,119 +706,778 @@ public class DataHandler {
      * @return true if deleted, false if not found
      */
     public boolean deleteHome(String uuid, String homeName) {
-        Map<String, Location> playerHomes = homes.get(uuid);
-        if (playerHomes == null) {
+        if (!removeHome(key(uuid), homeName, AuditLog.Action.DELETE)) {
             return false;
         }
+        markDirty();
+        return true;
+    }
 
-        boolean removed = playerHomes.remove(homeName) != null;
-        if (removed) {
-            if (playerHomes.isEmpty()) {
-                homes.remove(uuid);
+    /**
+     * Remove a home without marking the store dirty.
+     * @return true if the player had a home with that name
+     */
+    private boolean removeHome(UUID playerId, String homeName, AuditLog.Action action) {
+        boolean lazy = storage.isLazy();
+        // 0 = not found, 1 = deleted, 2 = evicted meanwhile and needs a reload
+        int[] outcome = new int[1];
+        int attempt = 0;
+        do {
+            if (attempt++ == MAX_LOAD_ATTEMPTS || !requireLoaded(playerId)) {
+                return false;
             }
-            saveHomes();
-            LOGGER.atInfo().log("Deleted home '" + homeName + "' for UUID: " + uuid);
+
+            outcome[0] = 0;
+            Lock lock = storage.mutationLock();
+            if (lock != null) {
+                lock.lock();
+            }
+            try {
+                homes.compute(playerId, (k, playerHomes) -> {
+                    if (playerHomes == null) {
+                        outcome[0] = lazy ? 2 : 0;
+                        return null;
+                    }
+
+                    int index = playerHomes.indexOf(homeName);
+                    if (index < 0) {
+                        return playerHomes;
+                    }
+                    PlayerHomes updated = playerHomes.without(homeName);
+                    storage.recordDelete(k, homeName);
+                    publicHomes.remove(k, homeName);
+                    if (indexing(k)) {
+                        spatialIndex.remove(playerHomes.worldId(index), k, homeName,
+                                playerHomes.x(index), playerHomes.z(index));
+                    }
+                    if (audit != null) {
+                        audit.recordDelete(action, k, homeName);
+                    }
+                    outcome[0] = 1;
+
+                    // With lazy storages an empty entry still marks the player as loaded
+                    return updated.isEmpty() && !lazy ? null : updated;
+                });
+            } finally {
+                if (lock != null) {
+                    lock.unlock();
+                }
+            }
+        } while (outcome[0] == 2);
+
+        return outcome[0] == 1;
+    }
+
+    /**
+     * @return the directory of homes players published for others to visit
+     */
+    public PublicHomeDirectory getPublicHomes() {
+        return publicHomes;
+    }
+
+    /**
+     * @return positions online players teleported away from, for /back
+     */
+    public BackHistory getBackHistory() {
+        return backHistory;
+    }
+
+    /**
+     * Publish one of a player's homes so others can visit it, or update the description of one
+     * that already is.
+     * @param ownerName Name others use to find the owner
+     * @param description Free text others can search
+     * @return false if the player has no such home or already has the maximum number of public homes
+     */
+    public boolean publishHome(String uuid, String ownerName, String homeName, String description) {
+        UUID playerId = key(uuid);
+        if (getLoadedHomes(playerId) == null) {
+            return false;
         }
-        return removed;
+
+        boolean[] published = {false};
+        // Inside the owner's update, so the home cannot be deleted between the check and publishing
+        homes.computeIfPresent(playerId, (k, playerHomes) -> {
+            int index = playerHomes.indexOf(homeName);
+            if (index >= 0) {
+                published[0] = publicHomes.publish(k, ownerName, homeName, description, playerHomes.x(index),
+                        playerHomes.y(index), playerHomes.z(index), worlds.nameOf(playerHomes.worldId(index)));
+            }
+            return playerHomes;
+        });
+        return published[0];
     }
 
-    private void loadHomes() {
-        if (!dataFile.exists()) {
-            LOGGER.atInfo().log("No data file found at: " + dataFile.getAbsolutePath());
-            return;
+    /**
+     * Take a home out of the public directory. The home itself stays.
+     * @return true if it was public
+     */
+    public boolean unpublishHome(String uuid, String homeName) {
+        waitUntilReady();
+        return publicHomes.remove(key(uuid), homeName);
+    }
+
+    /**
+     * @return true if homes are indexed by position and the area queries below can be used
+     */
+    public boolean hasSpatialIndex() {
+        return spatialIndex != null;
+    }
+
+    /**
+     * Find every home near a point, whether or not its owner is loaded
+     * @param worldName World to search
+     * @param x Center X
+     * @param z Center Z
+     * @param radius Horizontal distance from the center
+     * @return homes closest first, empty if the index is disabled
+     */
+    public List<IndexedHome> findHomesNear(String worldName, double x, double z, double radius) {
+        waitUntilReady();
+        if (spatialIndex == null) {
+            return Collections.emptyList();
         }
+        ensureSpatialIndex();
+        int worldId = worlds.find(worldName);
+        if (worldId < 0) {
+            return Collections.emptyList();
+        }
+        return spatialIndex.near(worldId, x, z, radius);
+    }
 
-        LOGGER.atInfo().log("Loading homes from JSON file...");
+    /**
+     * Find every home inside a box, whether or not its owner is loaded. Bounds are inclusive.
+     * @return homes in the box, empty if the index is disabled
+     */
+    public List<IndexedHome> findHomesIn(String worldName, double minX, double minY, double minZ,
+                                         double maxX, double maxY, double maxZ) {
+        waitUntilReady();
+        if (spatialIndex == null) {
+            return Collections.emptyList();
+        }
+        ensureSpatialIndex();
+        int worldId = worlds.find(worldName);
+        if (worldId < 0) {
+            return Collections.emptyList();
+        }
+        return spatialIndex.within(worldId, minX, minY, minZ, maxX, maxY, maxZ);
+    }
 
-        try {
-            String json = Files.readString(dataFile.toPath());
-            JsonObject root = JsonParser.parseString(json).getAsJsonObject();
-            JsonObject users = root.getAsJsonObject("users");
+    /**
+     * Delete every home inside a box. Owners that are not loaded are loaded first, so call this off
+     * the world threads.
+     * @return number of homes deleted
+     */
+    public int deleteHomesIn(String worldName, double minX, double minY, double minZ,
+                             double maxX, double maxY, double maxZ) {
+        waitUntilReady();
+        int deleted = 0;
+        for (IndexedHome home : findHomesIn(worldName, minX, minY, minZ, maxX, maxY, maxZ)) {
+            if (removeHome(home.getOwner(), home.getName(), AuditLog.Action.AREA_DELETE)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            markDirty();
+        }
+        LOGGER.atInfo().log("Deleted " + deleted + " homes in a box in world '" + worldName + "'");
+        return deleted;
+    }
 
-            if (users == null) {
-                LOGGER.atWarning().log("No 'users' object found in JSON");
-                return;
+    /**
+     * Count homes per world. Once the spatial index is built this reads each world's cells; until then
+     * every stored player is read.
+     * @return world name to number of homes, for every world that has homes
+     */
+    public Map<String, Integer> countHomesByWorld() throws IOException {
+        waitUntilReady();
+        Map<String, Integer> counts = new TreeMap<>();
+        if (spatialIndex != null && indexBuilt.isDone()) {
+            for (int worldId : spatialIndex.worldIds()) {
+                counts.put(worlds.nameOf(worldId), spatialIndex.countIn(worldId));
             }
+            return counts;
+        }
 
-            for (Map.Entry<String, JsonElement> userEntry : users.entrySet()) {
-                String uuid = userEntry.getKey();
-                JsonObject userHomes = userEntry.getValue().getAsJsonObject();
+        // Players evicted while counting are in both places, so remember who was counted
+        Set<UUID> counted = new HashSet<>();
+        BiConsumer<UUID, PlayerHomes> count = (uuid, playerHomes) -> {
+            if (counted.add(uuid)) {
+                for (int i = 0; i < playerHomes.size(); i++) {
+                    counts.merge(worlds.nameOf(playerHomes.worldId(i)), 1, Integer::sum);
+                }
+            }
+        };
+        homes.forEach(count);
+        if (storage.isLazy()) {
+            storage.forEachStored(count);
+        }
+        return counts;
+    }
 
-                Map<String, Location> playerHomes = new HashMap<>();
+    /**
+     * Delete every home in a world, for a world that was reset or removed. Only the owners with
+     * homes in the world are touched. Owners that are not loaded are loaded first, so call this off
+     * the world threads.
+     * @return number of homes deleted and of owners that could not be loaded
+     */
+    public WorldChangeResult dropWorldHomes(String worldName) throws IOException {
+        WorldChangeResult result = changeWorld(worldName, -1, AuditLog.Action.WORLD_DROP);
+        LOGGER.atInfo().log("Deleted " + result.getChanged() + " homes in world '" + worldName + "', " +
+                result.getFailedOwners() + " owners could not be loaded");
+        return result;
+    }
 
-                for (Map.Entry<String, JsonElement> homeEntry : userHomes.entrySet()) {
-                    String homeName = homeEntry.getKey();
-                    JsonArray homeData = homeEntry.getValue().getAsJsonArray();
+    /**
+     * Move every home in a world to a new world name, for a world that was renamed. If the new name
+     * already has homes the two worlds' homes are merged. Only the owners with homes in the world
+     * are touched; owners that are not loaded are loaded first, so call this off the world threads.
+     * @return number of homes moved and of owners that could not be loaded
+     */
+    public WorldChangeResult renameWorldHomes(String worldName, String newWorldName) throws IOException {
+        if (worldName.equals(newWorldName)) {
+            return WorldChangeResult.NONE;
+        }
+        WorldChangeResult result = changeWorld(worldName, worlds.idOf(newWorldName), AuditLog.Action.WORLD_RENAME);
+        LOGGER.atInfo().log("Moved " + result.getChanged() + " homes from world '" + worldName + "' to '" +
+                newWorldName + "', " + result.getFailedOwners() + " owners could not be loaded");
+        return result;
+    }
+
+    /**
+     * Delete the homes in every world not in the given set, for the optional startup sweep.
+     * @param existingWorlds Names of the worlds the server has
+     * @return number of homes deleted and of owners that could not be loaded
+     */
+    public WorldChangeResult dropMissingWorldHomes(Set<String> existingWorlds) throws IOException {
+        waitUntilReady();
+        WorldChangeResult result = WorldChangeResult.NONE;
+        for (String worldName : countHomesByWorld().keySet()) {
+            if (!existingWorlds.contains(worldName)) {
+                result = result.plus(dropWorldHomes(worldName));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param replacement World id to move the homes to, or -1 to delete them
+     * @return number of homes changed and of owners that could not be loaded
+     */
+    private WorldChangeResult changeWorld(String worldName, int replacement, AuditLog.Action action) throws IOException {
+        waitUntilReady();
+        int worldId = worlds.find(worldName);
+        if (worldId < 0) {
+            return WorldChangeResult.NONE;
+        }
+
+        int changed = 0;
+        int failed = 0;
+        for (UUID owner : ownersIn(worldId)) {
+            int count = replaceHomes(owner, current -> current.replaceWorld(worldId, replacement), action);
+            if (count < 0) {
+                failed++;
+            } else {
+                changed += count;
+            }
+        }
+        if (changed > 0) {
+            markDirty();
+        }
+        return new WorldChangeResult(changed, failed);
+    }
+
+    /**
+     * @return the players with at least one home in the world
+     */
+    private Set<UUID> ownersIn(int worldId) throws IOException {
+        if (spatialIndex != null && indexBuilt.isDone()) {
+            return spatialIndex.ownersIn(worldId);
+        }
+
+        // No index yet, every stored player has to be read
+        Set<UUID> owners = new HashSet<>();
+        homes.forEach((uuid, playerHomes) -> {
+            if (playerHomes.hasWorld(worldId)) {
+                owners.add(uuid);
+            }
+        });
+        if (storage.isLazy()) {
+            storage.forEachStored((uuid, playerHomes) -> {
+                if (playerHomes.hasWorld(worldId)) {
+                    owners.add(uuid);
+                }
+            });
+        }
+        return owners;
+    }
+
+    /**
+     * Write the store to disk now, regardless of the write-behind schedule.
+     * With journal storage this also compacts the journal into a fresh snapshot.
+     * Blocks until the write has finished.
+     * @return true if the write succeeded
+     */
+    public boolean flush() {
+        waitUntilReady();
+        publicHomes.saveIfDirty();
+        dirty.set(false);
+        long start = System.nanoTime();
+        boolean saved = storage.flushAll();
+        saveTime.recordSince(start);
+        if (!saved) {
+            dirty.set(true);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write every player's homes to a file, whatever the storage backend. Streams players one at a
+     * time, so nothing beyond what is already loaded is held in memory.
+     * @param target File to write
+     * @param format Layout of the file
+     * @param progress Told the number of homes written every few thousand homes
+     * @return number of players exported
+     */
+    public int exportHomes(File target, HomeFormat format, TransferProgress progress) throws IOException {
+        int players = exportHomes(new FileOutputStream(target), format, progress);
+        LOGGER.atInfo().log("Exported " + players + " players to " + target.getAbsolutePath());
+        return players;
+    }
 
-                    if (homeData.size() == 4) {
-                        double x = homeData.get(0).getAsDouble();
-                        double y = homeData.get(1).getAsDouble();
-                        double z = homeData.get(2).getAsDouble();
-                        String worldName = homeData.get(3).getAsString();
+    /**
+     * Write every player's homes to a stream, closing it when done.
+     * @return number of players exported
+     */
+    int exportHomes(OutputStream target, HomeFormat format, TransferProgress progress) throws IOException {
+        waitUntilReady();
+        int[] exported = {0};
+        long[] nextReport = {EXPORT_PROGRESS_STEP};
+        // Players loaded or evicted between the two walks are in both places or neither, so remember who was written
+        Set<UUID> written = new HashSet<>();
+        try (HomeExporter exporter = new HomeExporter(target, format, worlds)) {
+            BiConsumer<UUID, PlayerHomes> writeUser = (uuid, playerHomes) -> {
+                if (!written.add(uuid) || playerHomes.isEmpty()) {
+                    return;
+                }
+                try {
+                    exporter.write(uuid, playerHomes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+                if (exporter.getHomes() >= nextReport[0]) {
+                    progress.report(exporter.getHomes(), -1);
+                    nextReport[0] += EXPORT_PROGRESS_STEP;
+                }
+            };
 
-                        Vector3d coords = new Vector3d(x, y, z);
-                        playerHomes.put(homeName, new Location(coords, worldName));
-                    } else {
-                        LOGGER.atWarning().log("Invalid home data for " + uuid + "." + homeName);
+            homes.forEach(writeUser);
+
+            // Players that were only in storage, taking the loaded copy of anyone loaded since
+            storage.forEachStored((uuid, playerHomes) -> {
+                if (!written.contains(uuid)) {
+                    PlayerHomes loaded = homes.get(uuid);
+                    writeUser.accept(uuid, loaded == null ? playerHomes : loaded);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
+    /**
+     * Read homes from a file and add them to the store. The file is streamed in batches and parsed
+     * on several threads; owners that are not loaded are loaded first, so call this off the world threads.
+     * Everything is written to disk once the import has finished.
+     * @param source File to read
+     * @param format Layout of the file
+     * @param policy What to do when a player already has a home with an imported name
+     * @param progress Told the number of homes handled each time another tenth of the file is read
+     * @return counts of stored, renamed, skipped and invalid homes
+     */
+    public ImportResult importHomes(File source, HomeFormat format, ConflictPolicy policy,
+                                    TransferProgress progress) throws IOException {
+        int parallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ImportResult result = new HomeImporter(this, policy, parallelism, progress).run(source, format);
+        if (!flush()) {
+            LOGGER.atWarning().log("Imported homes could not be written yet, they stay pending");
+        }
+        return result;
+    }
+
+    /**
+     * Write a compressed, checksummed snapshot of every home to plugins/openhomes/backups/ and
+     * delete the oldest backups beyond the configured count. Walks every stored player, so call
+     * this off the world threads.
+     * @return file name of the new backup
+     */
+    public String createBackup() throws IOException {
+        return backups.create().getName();
+    }
+
+    /**
+     * @return file names of the existing backups, newest first
+     */
+    public List<String> listBackups() {
+        List<String> names = new ArrayList<>();
+        for (File backup : backups.list()) {
+            names.add(backup.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Replace every player's homes with those in a backup, without a restart. The backup is checked
+     * against its checksum before anything changes. Players are swapped one at a time through the
+     * same path as other changes, so the storage, area index and audit log stay in step; homes set
+     * while the restore runs may survive it. Owners that are not loaded are loaded first, so call
+     * this off the world threads.
+     * @param name File name of the backup, as listed by {@link #listBackups()}
+     * @return number of players whose homes were restored
+     * @throws IOException if the backup is missing, damaged or cannot be read
+     */
+    public int restoreBackup(String name) throws IOException {
+        waitUntilReady();
+        long start = System.nanoTime();
+        File backup = backups.verify(name);
+        Set<UUID> restored = ConcurrentHashMap.newKeySet();
+        int[] failed = {0};
+
+        try {
+            new HomeSnapshotReader(1).read(backups.open(backup), block -> {
+                UUID playerId = HomeTable.storedKey(block.uuid);
+                if (playerId == null) {
+                    return;
+                }
+                restored.add(playerId);
+                PlayerHomes target = table.pack(block);
+                if (replaceHomes(playerId, current -> target, AuditLog.Action.RESTORE) < 0) {
+                    failed[0]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read backup " + name, e);
+        }
+
+        // Players created after the backup was taken, collected first because clearing loads them
+        List<UUID> extra = new ArrayList<>();
+        for (UUID playerId : homes.keySet()) {
+            if (!restored.contains(playerId)) {
+                extra.add(playerId);
+            }
+        }
+        if (storage.isLazy()) {
+            storage.forEachStored((uuid, playerHomes) -> {
+                if (!restored.contains(uuid) && !homes.containsKey(uuid)) {
+                    extra.add(uuid);
+                }
+            });
+        }
+        for (UUID playerId : extra) {
+            if (replaceHomes(playerId, current -> PlayerHomes.EMPTY, AuditLog.Action.RESTORE) < 0) {
+                failed[0]++;
+            }
+        }
+
+        markChanged();
+        if (!flush()) {
+            LOGGER.atWarning().log("Restored homes could not be written yet, they stay pending");
+        }
+        LOGGER.atInfo().log("Restored " + restored.size() + " players from " + name + ", cleared " + extra.size() +
+                " players not in the backup, " + failed[0] + " failed, in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return restored.size();
+    }
+
+    /**
+     * Replace a player's homes with a changed copy, recording only the homes that change.
+     * @param change Turns the current homes into the new ones, may run more than once
+     * @return number of homes set or removed, or -1 if the player's homes could not be loaded
+     */
+    private int replaceHomes(UUID playerId, UnaryOperator<PlayerHomes> change, AuditLog.Action action) {
+        boolean lazy = storage.isLazy();
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS && requireLoaded(playerId); attempt++) {
+            int[] changed = {-1};
+            Lock lock = storage.mutationLock();
+            if (lock != null) {
+                lock.lock();
+            }
+            try {
+                homes.compute(playerId, (k, playerHomes) -> {
+                    if (playerHomes == null && lazy) {
+                        // Evicted since requireLoaded, reload instead of overwriting stored homes
+                        return null;
                     }
+
+                    PlayerHomes current = playerHomes == null ? PlayerHomes.EMPTY : playerHomes;
+                    PlayerHomes target = change.apply(current);
+                    changed[0] = applyDiff(k, current, target, action);
+
+                    // With lazy storages an empty entry still marks the player as loaded
+                    return target.isEmpty() && !lazy ? null : target;
+                });
+            } finally {
+                if (lock != null) {
+                    lock.unlock();
                 }
+            }
+
+            if (changed[0] >= 0) {
+                return changed[0];
+            }
+        }
+        return -1;
+    }
 
-                homes.put(uuid, playerHomes);
+    /**
+     * Take a player's homes as another server stored them, keeping this server's unwritten changes on top.
+     */
+    private void applyStored(UUID playerId, PlayerHomes stored) {
+        boolean lazy = storage.isLazy();
+        homes.compute(playerId, (k, playerHomes) -> {
+            if (playerHomes == null && lazy) {
+                // Not loaded, the next load reads the new file
+                return null;
             }
+            PlayerHomes target = storage.withPending(k, stored);
+            applyDiff(k, playerHomes == null ? PlayerHomes.EMPTY : playerHomes, target, null);
+            return target.isEmpty() && !lazy ? null : target;
+        });
+    }
 
-            int totalHomes = homes.values().stream().mapToInt(Map::size).sum();
-            LOGGER.atInfo().log("Successfully loaded " + totalHomes + " homes for " + homes.size() + " players");
+    /**
+     * Update the index, and unless the change is already stored the storage and audit log, for every
+     * home that differs between current and target. Runs inside the player's map update.
+     * @param action Recorded action, or null if target came from storage
+     * @return number of homes set or removed
+     */
+    private int applyDiff(UUID playerId, PlayerHomes current, PlayerHomes target, AuditLog.Action action) {
+        boolean indexed = indexing(playerId);
+        int changed = 0;
+        for (int i = 0; i < current.size(); i++) {
+            int index = target.indexOf(current.name(i));
+            if (index >= 0 && sameHome(current, i, target, index)) {
+                continue;
+            }
+            if (indexed) {
+                spatialIndex.remove(current.worldId(i), playerId, current.name(i), current.x(i), current.z(i));
+            }
+            if (index < 0) {
+                changed++;
+                publicHomes.remove(playerId, current.name(i));
+            }
+            if (index < 0 && action != null) {
+                storage.recordDelete(playerId, current.name(i));
+                if (audit != null) {
+                    audit.recordDelete(action, playerId, current.name(i));
+                }
+            }
+        }
+        for (int i = 0; i < target.size(); i++) {
+            int index = current.indexOf(target.name(i));
+            if (index >= 0 && sameHome(current, index, target, i)) {
+                continue;
+            }
+            changed++;
+            if (index >= 0) {
+                publicHomes.moved(playerId, target.name(i), target.x(i), target.y(i), target.z(i),
+                        worlds.nameOf(target.worldId(i)));
+            }
+            if (indexed) {
+                spatialIndex.add(target.worldId(i), playerId, target.name(i), target.x(i), target.y(i), target.z(i));
+            }
+            if (action != null) {
+                String worldName = worlds.nameOf(target.worldId(i));
+                storage.recordSet(playerId, target.name(i), target.x(i), target.y(i), target.z(i), worldName);
+                if (audit != null) {
+                    audit.recordSet(action, playerId, target.name(i), target.x(i), target.y(i), target.z(i), worldName);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean sameHome(PlayerHomes a, int i, PlayerHomes b, int j) {
+        return a.worldId(i) == b.worldId(j) && a.x(i) == b.x(j) && a.y(i) == b.y(j) && a.z(i) == b.z(j);
+    }
 
-        } catch (IOException e) {
-            LOGGER.atSevere().withCause(e).log("Error reading JSON file");
-            throw new RuntimeException("Failed to load homes", e);
-        } catch (JsonSyntaxException e) {
-            LOGGER.atSevere().withCause(e).log("Invalid JSON format");
-            throw new RuntimeException("Failed to parse homes JSON", e);
+    private void backupQuietly() {
+        try {
+            createBackup();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atSevere().withCause(e).log("Scheduled home backup failed");
         }
     }
 
-    private void saveHomes() {
-        int totalHomes = homes.values().stream().mapToInt(Map::size).sum();
-        LOGGER.atInfo().log("Saving " + totalHomes + " homes for " + homes.size() + " players to file...");
+    /**
+     * Mark the store dirty without writing it, for bulk changes that flush once at the end.
+     */
+    void markChanged() {
+        dirty.set(true);
+    }
+
+    /**
+     * Run bulk work such as dropping a world's homes on the admin thread. Tasks run one at a time.
+     * @return future completed when the task has run, exceptionally if it threw
+     */
+    public CompletableFuture<Void> runInBackground(Runnable task) {
+        return CompletableFuture.runAsync(task, adminTasks);
+    }
 
+    /**
+     * Stop the background flusher and write any pending changes. Called on plugin shutdown.
+     */
+    public void shutdown() {
+        // A load still running would race the final save
+        waitUntilReady();
+        if (backupScheduler != null) {
+            // A backup in progress is abandoned, its temp file never replaces a real backup
+            backupScheduler.shutdownNow();
+        }
+        adminTasks.shutdownNow();
+        flusher.shutdown();
         try {
-            JsonObject root = new JsonObject();
-            JsonObject users = new JsonObject();
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Flusher did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (loader != null) {
+            loader.shutdownNow();
+        }
 
-            for (Map.Entry<String, Map<String, Location>> userEntry : homes.entrySet()) {
-                String uuid = userEntry.getKey();
-                JsonObject userHomes = getJsonObject(userEntry);
+        if (dirty.get() && storage.flush()) {
+            dirty.set(false);
+        }
+        storage.close();
+        publicHomes.saveIfDirty();
 
-                users.add(uuid, userHomes);
+        if (storage.isLazy()) {
+            LOGGER.atInfo().log("Home cache stats: " + cacheHits.sum() + " hits, " + cacheMisses.sum() + " misses");
+        }
+        if (audit != null) {
+            audit.shutdown();
+        }
+    }
+
+    /**
+     * @return true if there are changes that have not been written to disk yet
+     */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    private static UUID key(String uuid) {
+        return UUID.fromString(uuid);
+    }
+
+    /**
+     * @return the player's immutable homes, or null if they have none or they could not be loaded
+     */
+    private PlayerHomes getLoadedHomes(UUID uuid) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS && requireLoaded(uuid); attempt++) {
+            PlayerHomes playerHomes = homes.get(uuid);
+            // With lazy storages null means the player was evicted between the load and the read
+            if (playerHomes != null || !storage.isLazy()) {
+                return playerHomes;
             }
+        }
+        return null;
+    }
 
-            root.add("users", users);
+    private boolean requireLoaded(UUID uuid) {
+        try {
+            ensureLoaded(uuid).join();
+            return true;
+        } catch (CompletionException e) {
+            return false;
+        }
+    }
 
-            Files.writeString(dataFile.toPath(), gson.toJson(root));
-            LOGGER.atInfo().log("Successfully saved homes to JSON file");
+    private void loadPlayer(UUID uuid) throws IOException {
+        long start = System.nanoTime();
+        homes.putIfAbsent(uuid, storage.loadPlayer(uuid));
+        playerLoadTime.recordSince(start);
+        if (storage.supportsEviction() && !onlinePlayers.contains(uuid)) {
+            touchOffline(uuid);
+        }
+    }
 
-        } catch (IOException e) {
-            LOGGER.atSevere().withCause(e).log("Error saving homes to JSON file");
+    private void touchOffline(UUID uuid) {
+        boolean overCapacity;
+        synchronized (offlineLru) {
+            offlineLru.put(uuid, Boolean.TRUE);
+            overCapacity = offlineLru.size() > config.getMaxCachedOfflinePlayers();
+        }
+        if (overCapacity) {
+            flusher.execute(this::evictOfflinePlayers);
         }
     }
 
-    private static @NotNull JsonObject getJsonObject(Map.Entry<String, Map<String, Location>> userEntry) {
-        JsonObject userHomes = new JsonObject();
+    private void evictOfflinePlayers() {
+        int evicted = 0;
+        while (true) {
+            UUID uuid;
+            synchronized (offlineLru) {
+                if (offlineLru.size() <= config.getMaxCachedOfflinePlayers()) {
+                    break;
+                }
+                uuid = offlineLru.keySet().iterator().next();
+                offlineLru.remove(uuid);
+            }
 
-        for (Map.Entry<String, Location> homeEntry : userEntry.getValue().entrySet()) {
-            String homeName = homeEntry.getKey();
-            Location location = homeEntry.getValue();
-            Vector3d coords = location.getCoords();
+            // Pending changes go to disk before the player leaves memory
+            if (!storage.flushPlayer(uuid)) {
+                continue;
+            }
 
-            JsonArray homeData = new JsonArray();
-            homeData.add(coords.x);
-            homeData.add(coords.y);
-            homeData.add(coords.z);
-            homeData.add(location.getWorldName());
+            // Mutations mark the player dirty inside their compute, so checking here cannot miss one
+            boolean[] removed = {false};
+            homes.computeIfPresent(uuid, (k, playerHomes) -> {
+                if (onlinePlayers.contains(k) || storage.isDirty(k)) {
+                    return playerHomes;
+                }
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
 
-            userHomes.add(homeName, homeData);
+        if (evicted > 0) {
+            LOGGER.atInfo().log("Evicted " + evicted + " offline players from the home cache (" +
+                    cacheHits.sum() + " hits, " + cacheMisses.sum() + " misses)");
         }
-        return userHomes;
     }
-}
\ No newline at end of file
+
+    private void markDirty() {
+        if (config.isWriteBehind()) {
+            dirty.set(true);
+        } else {
+            timedFlush();
+        }
+    }
+
+    private void flushIfDirty() {
+        if (!dirty.compareAndSet(true, false)) {
+            return;
+        }
+
+        if (!timedFlush()) {
+            // Keep the changes pending so the next tick retries
+            dirty.set(true);
+        }
+    }
+
+    private boolean timedFlush() {
+        long start = System.nanoTime();
+        boolean saved = storage.flush();
+        saveTime.recordSince(start);
+        return saved;
+    }
+}
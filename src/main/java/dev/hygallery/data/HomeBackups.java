@@ -0,0 +1,166 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rotating snapshots of every home under plugins/openhomes/backups/. Each backup is a gzipped
+ * homeData.json export named homes-&lt;time&gt;.json.gz, with a SHA-256 of the compressed file in
+ * a .sha256 file next to it. Backups are written through a temp file, so a crash never leaves a
+ * partial backup under a real name.
+ */
+final class HomeBackups {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String PREFIX = "homes-";
+    private static final String SUFFIX = ".json.gz";
+    private static final String CHECKSUM_SUFFIX = ".sha256";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final DataHandler dataHandler;
+    private final File folder;
+    private final int keep;
+
+    HomeBackups(DataHandler dataHandler, File folder, int keep) {
+        this.dataHandler = dataHandler;
+        this.folder = folder;
+        this.keep = keep;
+    }
+
+    /**
+     * Write a new backup and delete the oldest ones beyond the configured count.
+     * @return the backup file
+     */
+    synchronized File create() throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        long start = System.nanoTime();
+        File backup = new File(folder, PREFIX + LocalDateTime.now().format(STAMP) + SUFFIX);
+        File temp = AtomicFiles.tempFor(backup);
+        MessageDigest digest = sha256();
+        int players;
+        try (OutputStream out = new GZIPOutputStream(new DigestOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024), digest), 64 * 1024)) {
+            players = dataHandler.exportHomes(out, HomeFormat.JSON, TransferProgress.NONE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        // Checksum first, so a listed backup always has one
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        File checksumFile = checksumFile(backup);
+        try {
+            AtomicFiles.write(checksumFile, (checksum + "  " + backup.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+            AtomicFiles.replace(temp, backup);
+        } catch (IOException e) {
+            Files.deleteIfExists(checksumFile.toPath());
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        LOGGER.atInfo().log("Backed up " + players + " players to " + backup.getName() + " (" + backup.length() +
+                " bytes) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        prune();
+        return backup;
+    }
+
+    /**
+     * @return backup files, newest first
+     */
+    List<File> list() {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        // Timestamps sort in the same order as their names
+        Arrays.sort(files);
+        List<File> backups = new ArrayList<>(files.length);
+        for (int i = files.length - 1; i >= 0; i--) {
+            backups.add(files[i]);
+        }
+        return backups;
+    }
+
+    /**
+     * Find a backup by file name and check it against its checksum.
+     * @return the backup file
+     * @throws IOException if there is no such backup, it has no checksum or it does not match
+     */
+    File verify(String name) throws IOException {
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX) || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            throw new IOException("not a backup name: " + name);
+        }
+        File backup = new File(folder, name);
+        if (!backup.isFile()) {
+            throw new IOException("no backup named " + name);
+        }
+        File checksumFile = checksumFile(backup);
+        if (!checksumFile.isFile()) {
+            throw new IOException("backup " + name + " has no checksum");
+        }
+
+        String expected = Files.readString(checksumFile.toPath(), StandardCharsets.UTF_8).trim().split("\\s+")[0];
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(new FileInputStream(backup), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) >= 0) {
+                // Only reading for the digest
+            }
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equalsIgnoreCase(expected)) {
+            throw new IOException("backup " + name + " does not match its checksum");
+        }
+        return backup;
+    }
+
+    /**
+     * @return the decompressed homeData.json content of a backup
+     */
+    InputStream open(File backup) throws IOException {
+        return new GZIPInputStream(new FileInputStream(backup), 64 * 1024);
+    }
+
+    private void prune() {
+        List<File> backups = list();
+        for (int i = keep; i < backups.size(); i++) {
+            File backup = backups.get(i);
+            boolean deleted = backup.delete();
+            if (!checksumFile(backup).delete() || !deleted) {
+                LOGGER.atWarning().log("Could not delete old backup " + backup.getName());
+            }
+        }
+    }
+
+    private static File checksumFile(File backup) {
+        return new File(backup.getPath() + CHECKSUM_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.hygallery.data;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Writes players' homes to a stream one player at a time, in any {@link HomeFormat}.
+ */
+final class HomeExporter implements Closeable {
+
+    private static final Gson GSON = new Gson();
+
+    private final HomeFormat format;
+    private final WorldTable worlds;
+    private final Writer out;
+    private final JsonWriter json;
+    private long homes;
+
+    /**
+     * @param target Stream to write, closed with the exporter
+     */
+    HomeExporter(OutputStream target, HomeFormat format, WorldTable worlds) throws IOException {
+        this.format = format;
+        this.worlds = worlds;
+        this.out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+        if (format == HomeFormat.JSON) {
+            this.json = new JsonWriter(out);
+            json.setIndent("  ");
+            json.beginObject().name("users").beginObject();
+        } else {
+            this.json = null;
+            if (format == HomeFormat.CSV) {
+                out.write("uuid,name,world,x,y,z\n");
+            }
+        }
+    }
+
+    void write(UUID uuid, PlayerHomes playerHomes) throws IOException {
+        String playerId = uuid.toString();
+        if (json != null) {
+            json.name(playerId).beginObject();
+        }
+
+        for (int i = 0; i < playerHomes.size(); i++) {
+            String name = playerHomes.name(i);
+            String world = worlds.nameOf(playerHomes.worldId(i));
+            double x = playerHomes.x(i);
+            double y = playerHomes.y(i);
+            double z = playerHomes.z(i);
+
+            switch (format) {
+                case JSON:
+                    json.name(name).beginArray().value(x).value(y).value(z).value(world).endArray();
+                    break;
+                case CSV:
+                    out.write(playerId + "," + csv(name) + "," + csv(world) + "," + x + "," + y + "," + z + "\n");
+                    break;
+                case NDJSON:
+                    out.write("{\"uuid\":\"" + playerId + "\",\"name\":" + GSON.toJson(name) + ",\"world\":" +
+                            GSON.toJson(world) + ",\"x\":" + x + ",\"y\":" + y + ",\"z\":" + z + "}\n");
+                    break;
+            }
+        }
+
+        if (json != null) {
+            json.endObject();
+        }
+        homes += playerHomes.size();
+    }
+
+    /**
+     * @return homes written so far
+     */
+    long getHomes() {
+        return homes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.endObject().endObject();
+            json.close();
+        } else {
+            out.close();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
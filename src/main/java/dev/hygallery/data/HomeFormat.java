@@ -0,0 +1,48 @@
+package dev.hygallery.data;
+
+import java.io.File;
+
+/**
+ * File formats for bulk import and export.
+ * <ul>
+ *   <li>JSON: the homeData.json layout, {"users": {uuid: {name: [x, y, z, world]}}}</li>
+ *   <li>CSV: a uuid,name,world,x,y,z header and one home per line</li>
+ *   <li>NDJSON: one {"uuid", "name", "world", "x", "y", "z"} object per line</li>
+ * </ul>
+ */
+public enum HomeFormat {
+    JSON("json"),
+    CSV("csv"),
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    HomeFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return the format with the given name, ignoring case, or null if there is none
+     */
+    public static HomeFormat parse(String name) {
+        for (HomeFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the format matching the file's extension, or null if it has none of the known ones
+     */
+    public static HomeFormat of(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : parse(name.substring(dot + 1));
+    }
+}
@@ -0,0 +1,334 @@
+package dev.hygallery.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+import dev.hygallery.audit.AuditLog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams homes from a file into a {@link DataHandler}. The input is read in batches that are
+ * parsed and applied on a small pool, with only a few batches in flight, so memory use does not
+ * grow with the file.
+ * <p>
+ * JSON input keeps each player's homes on one thread. CSV and NDJSON lines are batched as they come,
+ * so when a file repeats a player's home name across batches it is not defined which entry is applied last.
+ */
+final class HomeImporter {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int BATCH_LINES = 1024;
+    private static final String[] CSV_COLUMNS = {"uuid", "name", "world", "x", "y", "z"};
+    private static final int MAX_CSV_FIELDS = 16;
+
+    private final DataHandler dataHandler;
+    private final ConflictPolicy policy;
+    private final int parallelism;
+    private final TransferProgress progress;
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder renamed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private long totalBytes;
+    private volatile long bytesRead;
+    private final AtomicInteger reportedDecile = new AtomicInteger(0);
+
+    HomeImporter(DataHandler dataHandler, ConflictPolicy policy, int parallelism, TransferProgress progress) {
+        this.dataHandler = dataHandler;
+        this.policy = policy;
+        this.parallelism = Math.max(1, parallelism);
+        this.progress = progress;
+    }
+
+    ImportResult run(File source, HomeFormat format) throws IOException {
+        long start = System.nanoTime();
+        this.totalBytes = Math.max(1, source.length());
+        LOGGER.atInfo().log("Importing " + format + " homes from " + source.getAbsolutePath() + " (" + policy + ")");
+
+        InputStream in = new CountingInputStream(new FileInputStream(source));
+        switch (format) {
+            case JSON:
+                readJson(in);
+                break;
+            case CSV:
+            case NDJSON:
+                readLines(in, format);
+                break;
+        }
+
+        progress.report(handled(), 100);
+        ImportResult result = new ImportResult(stored.sum(), renamed.sum(), skipped.sum(), invalid.sum(), failed.sum(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.atInfo().log("Imported homes from " + source.getName() + ": " + result);
+        return result;
+    }
+
+    private void readJson(InputStream in) throws IOException {
+        HomeSnapshotReader reader = new HomeSnapshotReader(parallelism);
+        try {
+            reader.read(in, block -> {
+                UUID playerId = parseUuid(block.uuid);
+                if (playerId == null) {
+                    invalid.add(block.size);
+                } else {
+                    for (int i = 0; i < block.size; i++) {
+                        put(playerId, block.names[i], block.coords[i * 3], block.coords[i * 3 + 1],
+                                block.coords[i * 3 + 2], block.worlds[i]);
+                    }
+                }
+                batchDone();
+            });
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid homes JSON", e);
+        }
+        invalid.add(reader.getSkipped());
+    }
+
+    private void readLines(InputStream in, HomeFormat format) throws IOException {
+        try (BatchExecutor executor = new BatchExecutor("OpenHomes-Import", parallelism);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024)) {
+            int[] columns = null;
+            List<String> batch = new ArrayList<>(BATCH_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == HomeFormat.CSV && columns == null) {
+                    columns = csvColumns(line);
+                    if (columns != null) {
+                        continue;
+                    }
+                    // No header, columns are in the default order
+                    columns = new int[]{0, 1, 2, 3, 4, 5};
+                }
+
+                batch.add(line);
+                if (batch.size() == BATCH_LINES) {
+                    submit(executor, batch, format, columns);
+                    batch = new ArrayList<>(BATCH_LINES);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(executor, batch, format, columns);
+            }
+            executor.finish("importing homes");
+        }
+    }
+
+    private void submit(BatchExecutor executor, List<String> lines, HomeFormat format, int[] columns) {
+        executor.submit(() -> {
+            String[] fields = new String[MAX_CSV_FIELDS];
+            for (String line : lines) {
+                if (format == HomeFormat.CSV) {
+                    applyCsv(line, columns, fields);
+                } else {
+                    applyNdjson(line);
+                }
+            }
+            batchDone();
+        });
+    }
+
+    /**
+     * @return column index of uuid, name, world, x, y and z if the line is a header, else null
+     */
+    private static int[] csvColumns(String line) {
+        String[] header = splitCsv(line, new String[MAX_CSV_FIELDS]);
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.length && header[j] != null; j++) {
+                if (header[j].trim().equalsIgnoreCase(CSV_COLUMNS[i])) {
+                    columns[i] = j;
+                }
+            }
+            if (columns[i] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    private void applyCsv(String line, int[] columns, String[] fields) {
+        splitCsv(line, fields);
+        for (int column : columns) {
+            if (fields[column] == null) {
+                invalid.increment();
+                return;
+            }
+        }
+
+        UUID playerId = parseUuid(fields[columns[0]]);
+        if (playerId == null) {
+            invalid.increment();
+            return;
+        }
+        try {
+            put(playerId, fields[columns[1]], Double.parseDouble(fields[columns[3]]),
+                    Double.parseDouble(fields[columns[4]]), Double.parseDouble(fields[columns[5]]), fields[columns[2]]);
+        } catch (NumberFormatException e) {
+            invalid.increment();
+        }
+    }
+
+    private void applyNdjson(String line) {
+        try {
+            JsonObject home = JsonParser.parseString(line).getAsJsonObject();
+            UUID playerId = parseUuid(string(home, "uuid"));
+            String name = string(home, "name");
+            String world = string(home, "world");
+            if (playerId == null || name == null || world == null
+                    || !isNumber(home, "x") || !isNumber(home, "y") || !isNumber(home, "z")) {
+                invalid.increment();
+                return;
+            }
+            put(playerId, name, home.get("x").getAsDouble(), home.get("y").getAsDouble(),
+                    home.get("z").getAsDouble(), world);
+        } catch (JsonParseException | IllegalStateException e) {
+            invalid.increment();
+        }
+    }
+
+    /**
+     * Store one home. Names are lowercased and must be a single word without the public home
+     * separator, like names typed into /sethome.
+     */
+    private void put(UUID playerId, String homeName, double x, double y, double z, String world) {
+        String name = homeName.trim().toLowerCase();
+        if (name.isEmpty() || name.chars().anyMatch(Character::isWhitespace)
+                || name.indexOf(PublicHomeDirectory.OWNER_SEPARATOR) >= 0
+                || !Double.isFinite(x) || !Double.isFinite(y) || !Double.isFinite(z)) {
+            invalid.increment();
+            return;
+        }
+
+        switch (dataHandler.putHome(playerId, name, x, y, z, world, policy, AuditLog.Action.IMPORT)) {
+            case DataHandler.PUT_STORED:
+                stored.increment();
+                break;
+            case DataHandler.PUT_RENAMED:
+                renamed.increment();
+                break;
+            case DataHandler.PUT_SKIPPED:
+                skipped.increment();
+                break;
+            default:
+                failed.increment();
+        }
+    }
+
+    private void batchDone() {
+        dataHandler.markChanged();
+
+        int percent = (int) Math.min(99, bytesRead * 100 / totalBytes);
+        int decile = reportedDecile.get();
+        if (percent / 10 > decile && reportedDecile.compareAndSet(decile, percent / 10)) {
+            progress.report(handled(), percent);
+        }
+    }
+
+    private long handled() {
+        return stored.sum() + renamed.sum() + skipped.sum() + invalid.sum() + failed.sum();
+    }
+
+    private static UUID parseUuid(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String string(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString() ? value.getAsString() : null;
+    }
+
+    private static boolean isNumber(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber();
+    }
+
+    /**
+     * Split one CSV line, honouring double quotes and "" escapes. Unused trailing slots are null.
+     */
+    private static String[] splitCsv(String line, String[] fields) {
+        Arrays.fill(fields, null);
+        StringBuilder current = new StringBuilder();
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (count < fields.length) {
+                    fields[count] = current.toString();
+                }
+                count++;
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (count < fields.length) {
+            fields[count] = current.toString();
+        }
+        return fields;
+    }
+
+    /**
+     * Tracks how far into the file the reader is, for progress reports.
+     */
+    private final class CountingInputStream extends FilterInputStream {
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+    }
+}
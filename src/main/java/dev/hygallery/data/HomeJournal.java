@@ -0,0 +1,202 @@
+package dev.hygallery.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of home mutations, stored next to homeData.json.
+ * Each line is one compact JSON array: ["s", uuid, name, x, y, z, world] or ["d", uuid, name].
+ */
+class HomeJournal implements Closeable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String OP_SET = "s";
+    private static final String OP_DELETE = "d";
+
+    /**
+     * Receives journal records in file order during replay.
+     */
+    interface ReplayTarget {
+        void set(String uuid, String homeName, double x, double y, double z, String worldName);
+
+        void delete(String uuid, String homeName);
+    }
+
+    private final File file;
+    private final File rotatedFile;
+    private final Gson gson = new Gson();
+    private FileOutputStream out;
+    private Writer writer;
+    private long size;
+    private long appended;
+
+    HomeJournal(File file) throws IOException {
+        this.file = file;
+        this.rotatedFile = new File(file.getPath() + ".old");
+        open();
+    }
+
+    private void open() throws IOException {
+        this.out = new FileOutputStream(file, true);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.size = file.length();
+    }
+
+    synchronized void appendSet(String uuid, String homeName, double x, double y, double z, String worldName) {
+        JsonArray record = new JsonArray();
+        record.add(OP_SET);
+        record.add(uuid);
+        record.add(homeName);
+        record.add(x);
+        record.add(y);
+        record.add(z);
+        record.add(worldName);
+        append(record);
+    }
+
+    synchronized void appendDelete(String uuid, String homeName) {
+        JsonArray record = new JsonArray();
+        record.add(OP_DELETE);
+        record.add(uuid);
+        record.add(homeName);
+        append(record);
+    }
+
+    private void append(JsonArray record) {
+        String line = gson.toJson(record);
+        // Names are written unescaped, so non-ASCII characters take several bytes
+        int bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        try {
+            writer.write(line);
+            writer.write('\n');
+            size += bytes;
+            appended += bytes;
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error appending to home journal");
+        }
+    }
+
+    /**
+     * Push buffered records to disk. Appends only reach the OS buffer, so records written between
+     * two flushes share one sync.
+     * @return true if the write succeeded
+     */
+    synchronized boolean flush() {
+        try {
+            writer.flush();
+            out.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error flushing home journal");
+            return false;
+        }
+    }
+
+    /**
+     * @return bytes appended since the journal was opened, across rotations
+     */
+    synchronized long appendedBytes() {
+        return appended;
+    }
+
+    /**
+     * @return approximate journal size in bytes, including buffered records
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return true if a rotated journal from an unfinished compaction is still on disk
+     */
+    boolean hasRotated() {
+        return rotatedFile.exists();
+    }
+
+    /**
+     * Move the current journal aside and start a fresh one. Records in the rotated file
+     * are covered by the snapshot the caller is about to write; call {@link #dropRotated()} once it is on disk.
+     */
+    synchronized void rotate() throws IOException {
+        writer.close();
+        if (rotatedFile.exists()) {
+            // A previous compaction never reached disk, keep its records ahead of ours
+            Files.write(rotatedFile.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+            Files.delete(file.toPath());
+        } else {
+            Files.move(file.toPath(), rotatedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    void dropRotated() throws IOException {
+        Files.deleteIfExists(rotatedFile.toPath());
+    }
+
+    /**
+     * Apply the rotated journal (if any) and then the live journal to the target.
+     * @return number of records applied
+     */
+    int replay(ReplayTarget homes) throws IOException {
+        int applied = 0;
+        if (rotatedFile.exists()) {
+            applied += replayFile(rotatedFile, homes);
+        }
+        if (file.exists()) {
+            applied += replayFile(file, homes);
+        }
+        return applied;
+    }
+
+    private int replayFile(File source, ReplayTarget homes) throws IOException {
+        int applied = 0;
+        int lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    JsonArray record = JsonParser.parseString(line).getAsJsonArray();
+                    String op = record.get(0).getAsString();
+                    String uuid = record.get(1).getAsString();
+                    String homeName = record.get(2).getAsString();
+
+                    if (OP_SET.equals(op) && record.size() == 7) {
+                        homes.set(uuid, homeName, record.get(3).getAsDouble(), record.get(4).getAsDouble(),
+                                record.get(5).getAsDouble(), record.get(6).getAsString());
+                        applied++;
+                    } else if (OP_DELETE.equals(op)) {
+                        homes.delete(uuid, homeName);
+                        applied++;
+                    } else {
+                        LOGGER.atWarning().log("Invalid journal record at " + source.getName() + ":" + lineNumber);
+                    }
+                } catch (JsonParseException | IllegalStateException | IndexOutOfBoundsException
+                         | NumberFormatException e) {
+                    // A torn final line after a crash lands here too
+                    LOGGER.atWarning().log("Skipping unreadable journal record at " + source.getName() + ":" + lineNumber);
+                }
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,140 @@
+package dev.hygallery.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tab completion and "did you mean" lookups over a player's home names. {@link PlayerHomes} keeps
+ * names sorted, so the names sharing a prefix form one run found with a binary search, and fuzzy
+ * matches only need a bounded edit distance against names of similar length.
+ */
+final class HomeNameMatcher {
+
+    // Home names are short, rows this size cover nearly all of them without growing
+    private static final int INITIAL_ROW = 33;
+
+    private HomeNameMatcher() {
+    }
+
+    /**
+     * @return up to limit names starting with prefix, in sorted order
+     */
+    static List<String> complete(PlayerHomes homes, String prefix, int limit) {
+        int start = homes.prefixStart(prefix);
+        int end = start;
+        while (end < homes.size() && end - start < limit && homes.name(end).startsWith(prefix)) {
+            end++;
+        }
+        if (end == start) {
+            return Collections.emptyList();
+        }
+
+        List<String> names = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            names.add(homes.name(i));
+        }
+        return names;
+    }
+
+    /**
+     * Names the player may have meant: completions of the input first, then names within a small
+     * edit distance, closest first.
+     * @return up to limit names, empty if nothing is close
+     */
+    static List<String> suggest(PlayerHomes homes, String input, int limit) {
+        List<String> suggestions = complete(homes, input, limit);
+        int remaining = limit - suggestions.size();
+        if (remaining <= 0) {
+            return suggestions;
+        }
+
+        int maxDistance = input.length() <= 3 ? 1 : 2;
+        // Best matches so far, kept ordered by distance; the scan is in name order so ties stay sorted
+        String[] best = new String[remaining];
+        int[] bestDistance = new int[remaining];
+        int found = 0;
+        int[] rows = new int[2 * Math.max(INITIAL_ROW, input.length() + maxDistance + 1)];
+        long inputChars = charMask(input);
+
+        for (int i = 0; i < homes.size(); i++) {
+            String name = homes.name(i);
+            if (Math.abs(name.length() - input.length()) > maxDistance || name.startsWith(input)) {
+                continue;
+            }
+            // Every character one side has and the other lacks costs at least one edit
+            long nameChars = charMask(name);
+            if (Long.bitCount(inputChars & ~nameChars) > maxDistance
+                    || Long.bitCount(nameChars & ~inputChars) > maxDistance) {
+                continue;
+            }
+            int distance = distance(input, name, maxDistance, rows);
+            if (distance > maxDistance || (found == remaining && distance >= bestDistance[found - 1])) {
+                continue;
+            }
+
+            int insert = found < remaining ? found++ : found - 1;
+            while (insert > 0 && bestDistance[insert - 1] > distance) {
+                best[insert] = best[insert - 1];
+                bestDistance[insert] = bestDistance[insert - 1];
+                insert--;
+            }
+            best[insert] = name;
+            bestDistance[insert] = distance;
+        }
+
+        if (found == 0) {
+            return suggestions;
+        }
+        List<String> merged = new ArrayList<>(suggestions.size() + found);
+        merged.addAll(suggestions);
+        for (int i = 0; i < found; i++) {
+            merged.add(best[i]);
+        }
+        return merged;
+    }
+
+    /**
+     * @return set of the characters in s, folded into 64 buckets
+     */
+    private static long charMask(String s) {
+        long mask = 0;
+        for (int i = 0; i < s.length(); i++) {
+            mask |= 1L << s.charAt(i);
+        }
+        return mask;
+    }
+
+    /**
+     * Levenshtein distance that gives up once every path costs more than max.
+     * @param rows scratch space of at least 2 * (b.length() + 1) ints
+     * @return the distance, or max + 1 if it is larger than max
+     */
+    static int distance(String a, String b, int max, int[] rows) {
+        int columns = b.length() + 1;
+        int previous = 0;
+        int current = columns;
+        for (int j = 0; j < columns; j++) {
+            rows[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            char c = a.charAt(i - 1);
+            rows[current] = i;
+            int rowMin = i;
+            for (int j = 1; j < columns; j++) {
+                int substitute = rows[previous + j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                int value = Math.min(substitute, Math.min(rows[previous + j], rows[current + j - 1]) + 1);
+                rows[current + j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(rows[previous + columns - 1], max + 1);
+    }
+}
@@ -0,0 +1,223 @@
+package dev.hygallery.data;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams homeData.json ({"users": {uuid: {name: [x, y, z, world]}}}) token by token,
+ * handing each player to a sink as soon as their block is read, so the file is never
+ * held in memory as a string or a JSON tree.
+ */
+class HomeSnapshotReader {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * One player's homes exactly as read, before names are deduplicated and worlds interned.
+     */
+    static final class UserBlock {
+        final String uuid;
+        String[] names = new String[4];
+        double[] coords = new double[12];
+        String[] worlds = new String[4];
+        int size;
+
+        UserBlock(String uuid) {
+            this.uuid = uuid;
+        }
+
+        void add(String name, double x, double y, double z, String world) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                coords = Arrays.copyOf(coords, size * 6);
+                worlds = Arrays.copyOf(worlds, size * 2);
+            }
+            names[size] = name;
+            coords[size * 3] = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            worlds[size] = world;
+            size++;
+        }
+    }
+
+    private final int parallelism;
+    private int players;
+    private int homes;
+    private int skipped;
+
+    /**
+     * @param parallelism threads that run the sink; 1 runs it on the reading thread
+     */
+    HomeSnapshotReader(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Read the file and pass every player to the sink. With parallelism above 1 the sink is
+     * called from several threads at once and must be thread-safe.
+     */
+    void read(File file, Consumer<UserBlock> sink) throws IOException {
+        read(new FileInputStream(file), sink);
+    }
+
+    /**
+     * Read a homeData.json stream and pass every player to the sink, closing the stream when done.
+     */
+    void read(InputStream in, Consumer<UserBlock> sink) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(
+                in, StandardCharsets.UTF_8), 64 * 1024))) {
+            if (parallelism == 1) {
+                readRoot(reader, sink);
+            } else {
+                readParallel(reader, sink);
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException("Invalid homes file structure", e);
+        }
+    }
+
+    private void readParallel(JsonReader reader, Consumer<UserBlock> sink) throws IOException {
+        try (BatchExecutor executor = new BatchExecutor("OpenHomes-Load", parallelism)) {
+            Batcher batcher = new Batcher(blocks -> executor.submit(() -> blocks.forEach(sink)));
+            readRoot(reader, batcher);
+            batcher.finish();
+            executor.finish("loading homes");
+        }
+    }
+
+    /**
+     * Groups blocks so the pool gets one task per batch rather than one per player.
+     */
+    private static final class Batcher implements Consumer<UserBlock> {
+        private final Consumer<List<UserBlock>> submit;
+        private List<UserBlock> batch = new ArrayList<>(BATCH_SIZE);
+
+        Batcher(Consumer<List<UserBlock>> submit) {
+            this.submit = submit;
+        }
+
+        @Override
+        public void accept(UserBlock block) {
+            batch.add(block);
+            if (batch.size() == BATCH_SIZE) {
+                submit.accept(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        void finish() {
+            if (!batch.isEmpty()) {
+                submit.accept(batch);
+            }
+        }
+    }
+
+    private void readRoot(JsonReader reader, Consumer<UserBlock> sink) throws IOException {
+        boolean foundUsers = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("users") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                foundUsers = true;
+                readUsers(reader, sink);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!foundUsers) {
+            LOGGER.atWarning().log("No 'users' object found in JSON");
+        }
+    }
+
+    private void readUsers(JsonReader reader, Consumer<UserBlock> sink) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String uuid = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                LOGGER.atWarning().log("Invalid home data for " + uuid);
+                reader.skipValue();
+                skipped++;
+                continue;
+            }
+
+            UserBlock block = new UserBlock(uuid);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                readHome(reader, block);
+            }
+            reader.endObject();
+
+            players++;
+            homes += block.size;
+            sink.accept(block);
+        }
+        reader.endObject();
+    }
+
+    private void readHome(JsonReader reader, UserBlock block) throws IOException {
+        String homeName = reader.nextName();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            invalidHome(block, homeName);
+            return;
+        }
+
+        // Same rule as before: exactly three numbers followed by a world name
+        reader.beginArray();
+        double[] xyz = new double[3];
+        int numbers = 0;
+        String worldName = null;
+        boolean valid = true;
+
+        while (reader.hasNext()) {
+            JsonToken token = reader.peek();
+            if (numbers < 3 && token == JsonToken.NUMBER) {
+                xyz[numbers++] = reader.nextDouble();
+            } else if (numbers == 3 && worldName == null && token == JsonToken.STRING) {
+                worldName = reader.nextString();
+            } else {
+                reader.skipValue();
+                valid = false;
+            }
+        }
+        reader.endArray();
+
+        if (valid && worldName != null) {
+            block.add(homeName, xyz[0], xyz[1], xyz[2], worldName);
+        } else {
+            invalidHome(block, homeName);
+        }
+    }
+
+    private void invalidHome(UserBlock block, String homeName) {
+        LOGGER.atWarning().log("Invalid home data for " + block.uuid + "." + homeName);
+        skipped++;
+    }
+
+    int getPlayers() {
+        return players;
+    }
+
+    int getHomes() {
+        return homes;
+    }
+
+    /**
+     * @return players and homes that were malformed and left out
+     */
+    int getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,301 @@
+package dev.hygallery.data;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uniform grid over the X/Z plane, one per world, holding every stored home including players that
+ * are not loaded. Area queries visit only the cells overlapping the area, or the occupied cells
+ * when there are fewer of those, so their cost follows the area and not the total number of homes.
+ * <p>
+ * {@link DataHandler} updates the grid inside the compute that changes a player's homes, so updates
+ * for one player are applied in order. Adding a home that is already indexed at the same position
+ * only replaces it, so a player can be re-indexed while their homes change.
+ */
+final class HomeSpatialIndex {
+
+    static final int CELL_SIZE = 64;
+
+    private final WorldTable worlds;
+    // World id -> grid
+    private final Map<Integer, Grid> grids = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    HomeSpatialIndex(WorldTable worlds) {
+        this.worlds = worlds;
+    }
+
+    void add(int worldId, UUID owner, String name, double x, double y, double z) {
+        if (grids.computeIfAbsent(worldId, id -> new Grid()).cell(cell(x), cell(z)).add(owner, name, x, y, z)) {
+            size.increment();
+        }
+    }
+
+    void addAll(UUID owner, PlayerHomes playerHomes) {
+        for (int i = 0; i < playerHomes.size(); i++) {
+            add(playerHomes.worldId(i), owner, playerHomes.name(i), playerHomes.x(i), playerHomes.y(i), playerHomes.z(i));
+        }
+    }
+
+    void remove(int worldId, UUID owner, String name, double x, double z) {
+        Grid grid = grids.get(worldId);
+        Cell cell = grid == null ? null : grid.cells.get(cellKey(cell(x), cell(z)));
+        if (cell != null && cell.remove(owner, name)) {
+            size.decrement();
+        }
+    }
+
+    /**
+     * Drop every home of the given owners, walking all cells once.
+     */
+    void removeOwners(Set<UUID> owners) {
+        for (Grid grid : grids.values()) {
+            for (Cell cell : grid.cells.values()) {
+                size.add(-cell.removeOwners(owners));
+            }
+        }
+    }
+
+    /**
+     * @return number of indexed homes
+     */
+    long size() {
+        return size.sum();
+    }
+
+    /**
+     * @return homes within radius of x/z on the horizontal plane, closest first
+     */
+    List<IndexedHome> near(int worldId, double x, double z, double radius) {
+        List<IndexedHome> found = new ArrayList<>();
+        double radiusSquared = radius * radius;
+        visit(worldId, x - radius, z - radius, x + radius, z + radius, (owner, name, hx, hy, hz) -> {
+            double dx = hx - x;
+            double dz = hz - z;
+            if (dx * dx + dz * dz <= radiusSquared) {
+                found.add(new IndexedHome(owner, name, hx, hy, hz, worlds.nameOf(worldId)));
+            }
+        });
+        found.sort(Comparator.comparingDouble(home ->
+                (home.getX() - x) * (home.getX() - x) + (home.getZ() - z) * (home.getZ() - z)));
+        return found;
+    }
+
+    /**
+     * @return homes inside the box, bounds inclusive
+     */
+    List<IndexedHome> within(int worldId, double minX, double minY, double minZ,
+                             double maxX, double maxY, double maxZ) {
+        List<IndexedHome> found = new ArrayList<>();
+        visit(worldId, minX, minZ, maxX, maxZ, (owner, name, hx, hy, hz) -> {
+            if (hx >= minX && hx <= maxX && hy >= minY && hy <= maxY && hz >= minZ && hz <= maxZ) {
+                found.add(new IndexedHome(owner, name, hx, hy, hz, worlds.nameOf(worldId)));
+            }
+        });
+        return found;
+    }
+
+    /**
+     * @return ids of the worlds that have at least one home
+     */
+    Set<Integer> worldIds() {
+        Set<Integer> ids = new HashSet<>();
+        grids.forEach((worldId, grid) -> {
+            if (countIn(worldId) > 0) {
+                ids.add(worldId);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * @return number of homes in the world
+     */
+    int countIn(int worldId) {
+        Grid grid = grids.get(worldId);
+        if (grid == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Cell cell : grid.cells.values()) {
+            count += cell.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the owners of every home in the world, visiting only that world's cells
+     */
+    Set<UUID> ownersIn(int worldId) {
+        Set<UUID> owners = new HashSet<>();
+        Grid grid = grids.get(worldId);
+        if (grid != null) {
+            for (Cell cell : grid.cells.values()) {
+                cell.forEach((owner, name, x, y, z) -> owners.add(owner));
+            }
+        }
+        return owners;
+    }
+
+    private interface HomeVisitor {
+        void visit(UUID owner, String name, double x, double y, double z);
+    }
+
+    private void visit(int worldId, double minX, double minZ, double maxX, double maxZ, HomeVisitor visitor) {
+        Grid grid = grids.get(worldId);
+        if (grid == null) {
+            return;
+        }
+
+        // Only cells that ever held a home can hold one now, which also bounds saturated huge areas
+        long minCellX;
+        long minCellZ;
+        long maxCellX;
+        long maxCellZ;
+        synchronized (grid) {
+            minCellX = Math.max(cell(minX), grid.minCellX);
+            minCellZ = Math.max(cell(minZ), grid.minCellZ);
+            maxCellX = Math.min(cell(maxX), grid.maxCellX);
+            maxCellZ = Math.min(cell(maxZ), grid.maxCellZ);
+        }
+        if (minCellX > maxCellX || minCellZ > maxCellZ) {
+            return;
+        }
+        // Each extent is at most 2^32, so the product can't overflow a long
+        long rangeCells = (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+
+        if (rangeCells > grid.cells.size()) {
+            // Huge area, walking the occupied cells is cheaper than walking the range
+            for (Map.Entry<Long, Cell> entry : grid.cells.entrySet()) {
+                int cellX = (int) (entry.getKey() >> 32);
+                int cellZ = (int) (long) entry.getKey();
+                if (cellX >= minCellX && cellX <= maxCellX && cellZ >= minCellZ && cellZ <= maxCellZ) {
+                    entry.getValue().forEach(visitor);
+                }
+            }
+            return;
+        }
+
+        for (long cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (long cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                Cell cell = grid.cells.get(cellKey((int) cellX, (int) cellZ));
+                if (cell != null) {
+                    cell.forEach(visitor);
+                }
+            }
+        }
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The cells of one world and the bounds of every cell that has held a home. The bounds only
+     * grow, so they always cover the occupied cells.
+     */
+    private static final class Grid {
+        final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+        private int minCellX = Integer.MAX_VALUE;
+        private int minCellZ = Integer.MAX_VALUE;
+        private int maxCellX = Integer.MIN_VALUE;
+        private int maxCellZ = Integer.MIN_VALUE;
+
+        Cell cell(int cellX, int cellZ) {
+            synchronized (this) {
+                minCellX = Math.min(minCellX, cellX);
+                minCellZ = Math.min(minCellZ, cellZ);
+                maxCellX = Math.max(maxCellX, cellX);
+                maxCellZ = Math.max(maxCellZ, cellZ);
+            }
+            return cells.computeIfAbsent(cellKey(cellX, cellZ), key -> new Cell());
+        }
+    }
+
+    /**
+     * Homes in one grid cell as parallel arrays. Cells hold few homes, so removal is a linear scan.
+     */
+    private static final class Cell {
+        private UUID[] owners = new UUID[4];
+        private String[] names = new String[4];
+        private double[] coords = new double[12];
+        private int size;
+
+        /**
+         * @return false if the home was already in the cell and only its position was replaced
+         */
+        synchronized boolean add(UUID owner, String name, double x, double y, double z) {
+            for (int i = 0; i < size; i++) {
+                if (owners[i].equals(owner) && names[i].equals(name)) {
+                    coords[i * 3] = x;
+                    coords[i * 3 + 1] = y;
+                    coords[i * 3 + 2] = z;
+                    return false;
+                }
+            }
+            if (size == owners.length) {
+                owners = Arrays.copyOf(owners, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+                coords = Arrays.copyOf(coords, size * 6);
+            }
+            owners[size] = owner;
+            names[size] = name;
+            coords[size * 3] = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            size++;
+            return true;
+        }
+
+        synchronized boolean remove(UUID owner, String name) {
+            for (int i = 0; i < size; i++) {
+                if (owners[i].equals(owner) && names[i].equals(name)) {
+                    // Move the last entry into the gap
+                    size--;
+                    owners[i] = owners[size];
+                    names[i] = names[size];
+                    System.arraycopy(coords, size * 3, coords, i * 3, 3);
+                    owners[size] = null;
+                    names[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return number of homes removed
+         */
+        synchronized int removeOwners(Set<UUID> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.contains(owners[i])) {
+                    owners[kept] = owners[i];
+                    names[kept] = names[i];
+                    System.arraycopy(coords, i * 3, coords, kept * 3, 3);
+                    kept++;
+                }
+            }
+            int count = size - kept;
+            Arrays.fill(owners, kept, size, null);
+            Arrays.fill(names, kept, size, null);
+            size = kept;
+            return count;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void forEach(HomeVisitor visitor) {
+            for (int i = 0; i < size; i++) {
+                visitor.visit(owners[i], names[i], coords[i * 3], coords[i * 3 + 1], coords[i * 3 + 2]);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package dev.hygallery.data;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistence backend behind {@link DataHandler}, selected with the "storage" config key.
+ * <p>
+ * Eager backends put every stored player into the {@link HomeTable} when opened. Lazy backends
+ * leave the table empty and load each player through {@link #loadPlayer(UUID)} on first use;
+ * for them a missing table entry means "not loaded yet" rather than "no homes".
+ * <p>
+ * {@link #recordSet} and {@link #recordDelete} run inside the per-player map update, so they see
+ * one player's changes in order. They must be quick; slow work belongs in {@link #flush()}.
+ */
+interface HomeStorage {
+
+    /**
+     * @return the config name of this backend
+     */
+    String getName();
+
+    /**
+     * @return true if players are loaded on demand instead of all at startup
+     */
+    boolean isLazy();
+
+    /**
+     * @return true if {@link #loadPlayer} does no IO and can run on the calling thread
+     */
+    default boolean isLoadCheap() {
+        return false;
+    }
+
+    /**
+     * @return true if offline players may be dropped from the table and reloaded later
+     */
+    default boolean supportsEviction() {
+        return false;
+    }
+
+    /**
+     * Prepare the backend, migrating from another format if needed. Eager backends load every player here.
+     */
+    void open() throws IOException;
+
+    /**
+     * Read one player's homes. Only called on lazy backends, never on a world thread unless {@link #isLoadCheap()}.
+     * @return the player's homes, {@link PlayerHomes#EMPTY} if they have none
+     */
+    default PlayerHomes loadPlayer(UUID uuid) throws IOException {
+        throw new UnsupportedOperationException(getName() + " storage loads every player at startup");
+    }
+
+    /**
+     * @return lock to hold across a map update and its record call, or null if none is needed
+     */
+    default Lock mutationLock() {
+        return null;
+    }
+
+    default void recordSet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+    }
+
+    default void recordDelete(UUID uuid, String homeName) {
+    }
+
+    /**
+     * Persist changes made since the last flush. Safe to call from several threads.
+     * @return true if everything reached disk
+     */
+    boolean flush();
+
+    /**
+     * Persist everything now, as for /homesave. Backends with cheap incremental flushes may
+     * also compact here.
+     * @return true if everything reached disk
+     */
+    default boolean flushAll() {
+        return flush();
+    }
+
+    /**
+     * @return true if the player has changes that have not been flushed yet
+     */
+    default boolean isDirty(UUID uuid) {
+        return false;
+    }
+
+    /**
+     * Flush one player's pending changes ahead of eviction.
+     * @return true if nothing for the player is pending any more
+     */
+    default boolean flushPlayer(UUID uuid) {
+        return flush();
+    }
+
+    /**
+     * @return total bytes written to disk since startup, 0 if the backend cannot tell
+     */
+    default long getBytesWritten() {
+        return 0;
+    }
+
+    /**
+     * Visit every stored player, for export. Eager backends have nothing beyond the table.
+     */
+    default void forEachStored(BiConsumer<UUID, PlayerHomes> consumer) throws IOException {
+    }
+
+    /**
+     * Start telling the listener about players another server changed on disk. Only backends
+     * shared between servers report anything.
+     */
+    default void watch(ChangeListener listener) {
+    }
+
+    /**
+     * Apply this server's changes that are not on disk yet on top of homes read from disk.
+     * Called inside the player's map update, so no new changes for the player arrive meanwhile.
+     */
+    default PlayerHomes withPending(UUID uuid, PlayerHomes stored) {
+        return stored;
+    }
+
+    /**
+     * Flush and release files or connections. Called once on shutdown.
+     */
+    void close();
+
+    /**
+     * Receives players whose stored homes changed outside this server.
+     */
+    interface ChangeListener {
+        void changed(UUID uuid, PlayerHomes stored);
+    }
+}
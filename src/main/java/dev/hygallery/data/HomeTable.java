@@ -0,0 +1,122 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in-memory home store shared by {@link DataHandler} and the storage backends:
+ * packed {@link PlayerHomes} per player, the world id table and the home name pool.
+ */
+final class HomeTable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final ConcurrentHashMap<UUID, PlayerHomes> homes = new ConcurrentHashMap<>();
+    private final WorldTable worlds = new WorldTable();
+    private final ConcurrentHashMap<String, String> homeNamePool = new ConcurrentHashMap<>();
+
+    ConcurrentHashMap<UUID, PlayerHomes> map() {
+        return homes;
+    }
+
+    WorldTable worlds() {
+        return worlds;
+    }
+
+    String dedupName(String homeName) {
+        String pooled = homeNamePool.putIfAbsent(homeName, homeName);
+        return pooled != null ? pooled : homeName;
+    }
+
+    /**
+     * @return the UUID, or null (with a warning) if a stored key is not a UUID
+     */
+    static UUID storedKey(String uuid) {
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            LOGGER.atWarning().log("Skipping homes stored under invalid UUID: " + uuid);
+            return null;
+        }
+    }
+
+    /**
+     * Pack a player block from the snapshot reader and store it. May run on several load threads at once.
+     */
+    void putLoaded(HomeSnapshotReader.UserBlock block) {
+        UUID playerId = storedKey(block.uuid);
+        if (playerId != null) {
+            homes.put(playerId, pack(block));
+        }
+    }
+
+    PlayerHomes pack(HomeSnapshotReader.UserBlock block) {
+        int[] worldIds = new int[block.size];
+        for (int i = 0; i < block.size; i++) {
+            block.names[i] = dedupName(block.names[i]);
+            worldIds[i] = worlds.idOf(block.worlds[i]);
+        }
+        return PlayerHomes.of(block.names, block.coords, worldIds, block.size);
+    }
+
+    PlayerHomes pack(Map<String, Location> playerHomes) {
+        Map<String, Location> deduped = new HashMap<>(playerHomes.size() * 2);
+        playerHomes.forEach((name, location) -> deduped.put(dedupName(name), location));
+        return PlayerHomes.of(deduped, worlds);
+    }
+
+    /**
+     * Apply a stored set without any persistence hooks, used while replaying a journal.
+     */
+    void applySet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+        String name = dedupName(homeName);
+        int worldId = worlds.idOf(worldName);
+        homes.compute(uuid, (k, playerHomes) ->
+                (playerHomes == null ? PlayerHomes.EMPTY : playerHomes).with(name, x, y, z, worldId));
+    }
+
+    /**
+     * Apply a stored delete without any persistence hooks, used while replaying a journal.
+     */
+    void applyDelete(UUID uuid, String homeName) {
+        homes.computeIfPresent(uuid, (k, playerHomes) -> {
+            PlayerHomes updated = playerHomes.without(homeName);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * @return number of homes currently held in memory
+     */
+    int homeCount() {
+        int total = 0;
+        for (PlayerHomes playerHomes : homes.values()) {
+            total += playerHomes.size();
+        }
+        return total;
+    }
+
+    /**
+     * Estimate retained heap per home, counting the map entry, UUID key, packed arrays and
+     * a share of the deduplicated name strings. Walks every player.
+     */
+    long estimateBytesPerHome() {
+        // ConcurrentHashMap node plus UUID object, both 32 bytes with compressed oops
+        final long perPlayerOverhead = 32 + 32;
+        long bytes = 0;
+        long homeCount = 0;
+        for (PlayerHomes playerHomes : homes.values()) {
+            bytes += perPlayerOverhead + playerHomes.estimateBytes();
+            homeCount += playerHomes.size();
+        }
+        for (String name : homeNamePool.keySet()) {
+            // Pool node, String object and its byte[] (Latin-1)
+            bytes += 32 + 24 + ((16 + name.length() + 7) & ~7L);
+        }
+        return homeCount == 0 ? 0 : bytes / homeCount;
+    }
+}
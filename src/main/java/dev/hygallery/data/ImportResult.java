@@ -0,0 +1,68 @@
+package dev.hygallery.data;
+
+/**
+ * Counts from a finished bulk import.
+ */
+public final class ImportResult {
+
+    private final long stored;
+    private final long renamed;
+    private final long skipped;
+    private final long invalid;
+    private final long failed;
+    private final long elapsedMillis;
+
+    ImportResult(long stored, long renamed, long skipped, long invalid, long failed, long elapsedMillis) {
+        this.stored = stored;
+        this.renamed = renamed;
+        this.skipped = skipped;
+        this.invalid = invalid;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return homes stored under their own name, new or overwriting an existing home
+     */
+    public long getStored() {
+        return stored;
+    }
+
+    /**
+     * @return homes stored under a new name because the player already had one with theirs
+     */
+    public long getRenamed() {
+        return renamed;
+    }
+
+    /**
+     * @return homes left out because the player already had one with the same name
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return malformed entries that were left out
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * @return homes that could not be stored because the player's existing homes failed to load
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return stored + " stored, " + renamed + " renamed, " + skipped + " skipped, " + invalid + " invalid, " +
+                failed + " failed in " + elapsedMillis + "ms";
+    }
+}
@@ -0,0 +1,49 @@
+package dev.hygallery.data;
+
+import java.util.UUID;
+
+/**
+ * A home found by an area query, with its owner.
+ */
+public final class IndexedHome {
+
+    private final UUID owner;
+    private final String name;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final String worldName;
+
+    IndexedHome(UUID owner, String name, double x, double y, double z, String worldName) {
+        this.owner = owner;
+        this.name = name;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.worldName = worldName;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+}
@@ -0,0 +1,303 @@
+package dev.hygallery.data;
+
+import com.google.gson.*;
+import com.hypixel.hytale.logger.HytaleLogger;
+import dev.hygallery.config.PluginConfig;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * The default backend: every player in homeData.json, rewritten in full on save.
+ * With the journal enabled, changes are appended to homeData.journal instead and folded
+ * back into the snapshot once the journal grows past the configured size.
+ */
+final class JsonHomeStorage implements HomeStorage {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final HomeTable table;
+    private final File dataFolder;
+    private final File dataFile;
+    private final PluginConfig config;
+    private final Executor background;
+    private final boolean journaled;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final LongAdder snapshotBytes = new LongAdder();
+
+    private HomeJournal journal;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    // Appends hold the read side across map update + append, rotation takes the write side
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+
+    JsonHomeStorage(HomeTable table, File dataFolder, PluginConfig config, Executor background, boolean journaled) {
+        this.table = table;
+        this.dataFolder = dataFolder;
+        this.dataFile = new File(dataFolder, "homeData.json");
+        this.config = config;
+        this.background = background;
+        this.journaled = journaled;
+    }
+
+    @Override
+    public String getName() {
+        return journaled ? "journal" : "json";
+    }
+
+    @Override
+    public boolean isLazy() {
+        return false;
+    }
+
+    @Override
+    public void open() throws IOException {
+        LOGGER.atInfo().log("Data file path: " + dataFile.getAbsolutePath());
+        File binarySnapshot = new File(dataFolder, "homeData.bin");
+        if (!dataFile.exists() && binarySnapshot.exists()) {
+            migrateFromBinary(binarySnapshot);
+        } else {
+            int parallelism = config.isParallelLoad() ? Runtime.getRuntime().availableProcessors() : 1;
+            read(dataFile, parallelism, table::putLoaded);
+        }
+
+        if (journaled) {
+            this.journal = new HomeJournal(new File(dataFolder, "homeData.journal"));
+            int replayed = journal.replay(new HomeJournal.ReplayTarget() {
+                @Override
+                public void set(String uuid, String homeName, double x, double y, double z, String worldName) {
+                    UUID playerId = HomeTable.storedKey(uuid);
+                    if (playerId != null) {
+                        table.applySet(playerId, homeName, x, y, z, worldName);
+                    }
+                }
+
+                @Override
+                public void delete(String uuid, String homeName) {
+                    UUID playerId = HomeTable.storedKey(uuid);
+                    if (playerId != null) {
+                        table.applyDelete(playerId, homeName);
+                    }
+                }
+            });
+            LOGGER.atInfo().log("Replayed " + replayed + " journal records");
+        }
+    }
+
+    @Override
+    public Lock mutationLock() {
+        return journaled ? journalLock.readLock() : null;
+    }
+
+    @Override
+    public void recordSet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+        if (journal != null) {
+            journal.appendSet(uuid.toString(), homeName, x, y, z, worldName);
+        }
+    }
+
+    @Override
+    public void recordDelete(UUID uuid, String homeName) {
+        if (journal != null) {
+            journal.appendDelete(uuid.toString(), homeName);
+        }
+    }
+
+    @Override
+    public boolean flush() {
+        if (journal == null) {
+            return saveHomes();
+        }
+
+        boolean flushed = journal.flush();
+        if (journal.size() >= config.getJournalCompactBytes() && compacting.compareAndSet(false, true)) {
+            try {
+                background.execute(() -> {
+                    try {
+                        compactJournal();
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the journal is replayed and compacted on the next start
+                compacting.set(false);
+            }
+        }
+        return flushed;
+    }
+
+    @Override
+    public boolean flushAll() {
+        if (journal == null) {
+            return saveHomes();
+        }
+        return journal.flush() && compactJournal();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return snapshotBytes.sum() + (journal == null ? 0 : journal.appendedBytes());
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            journal.flush();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Error closing home journal");
+            }
+        }
+    }
+
+    /**
+     * Stream a homeData.json file into the sink. With parallelism above 1 the sink runs on several threads.
+     */
+    static void read(File dataFile, int parallelism, Consumer<HomeSnapshotReader.UserBlock> sink) {
+        if (!dataFile.exists()) {
+            LOGGER.atInfo().log("No data file found at: " + dataFile.getAbsolutePath());
+            return;
+        }
+
+        LOGGER.atInfo().log("Loading homes from JSON file...");
+        long start = System.nanoTime();
+        HomeSnapshotReader reader = new HomeSnapshotReader(parallelism);
+
+        try {
+            reader.read(dataFile, sink);
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.atInfo().log("Successfully loaded " + reader.getHomes() + " homes for " + reader.getPlayers() +
+                    " players in " + elapsedMs + "ms");
+            if (reader.getSkipped() > 0) {
+                LOGGER.atWarning().log("Skipped " + reader.getSkipped() + " invalid entries");
+            }
+
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.atSevere().withCause(e).log("Error reading JSON file");
+            throw new RuntimeException("Failed to load homes", e);
+        } catch (JsonParseException e) {
+            LOGGER.atSevere().withCause(e).log("Invalid JSON format");
+            throw new RuntimeException("Failed to parse homes JSON", e);
+        }
+    }
+
+    /**
+     * Rename a file another backend has migrated away from, keeping it as a backup.
+     */
+    static void retire(File migrated, int players) throws IOException {
+        File migratedFile = new File(migrated.getPath() + ".migrated");
+        Files.move(migrated.toPath(), migratedFile.toPath());
+        LOGGER.atInfo().log("Migrated " + players + " players, original kept at " + migratedFile.getName());
+    }
+
+    /**
+     * Fold the journal into a fresh snapshot. Rotation waits for in-flight appends, so every record
+     * in the rotated journal is already visible in the map when the snapshot is built from it.
+     * If the snapshot write fails the rotated journal stays on disk and is replayed on the next load.
+     */
+    private synchronized boolean compactJournal() {
+        journalLock.writeLock().lock();
+        try {
+            journal.rotate();
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error rotating home journal");
+            return false;
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+
+        if (!writeSnapshot(buildSnapshot())) {
+            return false;
+        }
+
+        try {
+            journal.dropRotated();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Error removing compacted journal");
+        }
+        LOGGER.atInfo().log("Compacted home journal into snapshot");
+        return true;
+    }
+
+    private void migrateFromBinary(File binarySnapshot) throws IOException {
+        LOGGER.atInfo().log("Migrating homeData.bin to homeData.json...");
+        BinaryHomeSnapshot snapshot = BinaryHomeSnapshot.open(binarySnapshot, table::dedupName);
+        snapshot.forEach(table.worlds(), (uuid, playerHomes) -> {
+            if (!playerHomes.isEmpty()) {
+                table.map().put(uuid, playerHomes);
+            }
+        });
+        if (!saveHomes()) {
+            table.map().clear();
+            throw new IOException("Could not write homeData.json, homeData.bin left in place");
+        }
+        retire(binarySnapshot, table.map().size());
+    }
+
+    // Built under the storage lock so concurrent saves can never write an older snapshot last
+    private synchronized boolean saveHomes() {
+        return writeSnapshot(buildSnapshot());
+    }
+
+    private JsonObject buildSnapshot() {
+        JsonObject root = new JsonObject();
+        JsonObject users = new JsonObject();
+        int totalHomes = 0;
+
+        for (Map.Entry<UUID, PlayerHomes> userEntry : table.map().entrySet()) {
+            JsonObject userHomes = getJsonObject(userEntry.getValue());
+
+            users.add(userEntry.getKey().toString(), userHomes);
+            totalHomes += userEntry.getValue().size();
+        }
+
+        root.add("users", users);
+        LOGGER.atInfo().log("Saving " + totalHomes + " homes for " + users.size() + " players to file...");
+        return root;
+    }
+
+    private boolean writeSnapshot(JsonObject root) {
+        try {
+            byte[] data = gson.toJson(root).getBytes(StandardCharsets.UTF_8);
+            snapshotBytes.add(AtomicFiles.write(dataFile, data));
+            LOGGER.atInfo().log("Successfully saved homes to JSON file");
+            return true;
+
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving homes to JSON file");
+            return false;
+        }
+    }
+
+    private @NotNull JsonObject getJsonObject(PlayerHomes playerHomes) {
+        JsonObject userHomes = new JsonObject();
+
+        for (int i = 0; i < playerHomes.size(); i++) {
+            JsonArray homeData = new JsonArray();
+            homeData.add(playerHomes.x(i));
+            homeData.add(playerHomes.y(i));
+            homeData.add(playerHomes.z(i));
+            homeData.add(table.worlds().nameOf(playerHomes.worldId(i)));
+
+            userHomes.add(playerHomes.name(i), homeData);
+        }
+        return userHomes;
+    }
+}
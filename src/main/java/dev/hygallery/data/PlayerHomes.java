@@ -0,0 +1,315 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.util.*;
+
+/**
+ * One player's homes in a packed, immutable layout: names sorted in one array, coordinates
+ * as x/y/z triples in a double array and worlds as interned ids. Updates return a new instance.
+ */
+final class PlayerHomes {
+
+    static final PlayerHomes EMPTY = new PlayerHomes(new String[0], new double[0], new int[0]);
+
+    // Object header plus array header, used for the bytes-per-home estimate
+    private static final int OBJECT_HEADER = 16;
+
+    private final String[] names;
+    private final double[] coords;
+    private final int[] worldIds;
+
+    private PlayerHomes(String[] names, double[] coords, int[] worldIds) {
+        this.names = names;
+        this.coords = coords;
+        this.worldIds = worldIds;
+    }
+
+    /**
+     * Pack a name to location map. Names must already be deduplicated by the caller.
+     */
+    static PlayerHomes of(Map<String, Location> homes, WorldTable worlds) {
+        if (homes.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] names = homes.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        double[] coords = new double[names.length * 3];
+        int[] worldIds = new int[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            Location location = homes.get(names[i]);
+            Vector3d position = location.getCoords();
+            coords[i * 3] = position.x;
+            coords[i * 3 + 1] = position.y;
+            coords[i * 3 + 2] = position.z;
+            worldIds[i] = worlds.idOf(location.getWorldName());
+        }
+        return new PlayerHomes(names, coords, worldIds);
+    }
+
+    /**
+     * Pack parallel arrays as read from disk. Names must already be deduplicated by the caller;
+     * if a name repeats, the later entry wins.
+     */
+    static PlayerHomes of(String[] names, double[] coords, int[] worldIds, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // Stable sort keeps file order among equal names, so the last duplicate ends up last
+        Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+
+        int unique = 0;
+        int[] picked = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (unique > 0 && names[picked[unique - 1]].equals(names[order[i]])) {
+                picked[unique - 1] = order[i];
+            } else {
+                picked[unique++] = order[i];
+            }
+        }
+
+        String[] sortedNames = new String[unique];
+        double[] sortedCoords = new double[unique * 3];
+        int[] sortedWorlds = new int[unique];
+        for (int i = 0; i < unique; i++) {
+            int source = picked[i];
+            sortedNames[i] = names[source];
+            System.arraycopy(coords, source * 3, sortedCoords, i * 3, 3);
+            sortedWorlds[i] = worldIds[source];
+        }
+        return new PlayerHomes(sortedNames, sortedCoords, sortedWorlds);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    /**
+     * @return index of the home, or a negative value if the player has no home with that name
+     */
+    int indexOf(String homeName) {
+        return Arrays.binarySearch(names, homeName);
+    }
+
+    /**
+     * @return index of the first name not below prefix; names starting with prefix follow it in one run
+     */
+    int prefixStart(String prefix) {
+        int index = Arrays.binarySearch(names, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    double x(int index) {
+        return coords[index * 3];
+    }
+
+    double y(int index) {
+        return coords[index * 3 + 1];
+    }
+
+    double z(int index) {
+        return coords[index * 3 + 2];
+    }
+
+    int worldId(int index) {
+        return worldIds[index];
+    }
+
+    /**
+     * @return a fresh Location for the home at index, safe for the caller to keep or mutate
+     */
+    Location location(int index, WorldTable worlds) {
+        return new Location(new Vector3d(x(index), y(index), z(index)), worlds.nameOf(worldIds[index]));
+    }
+
+    PlayerHomes with(String homeName, double x, double y, double z, int worldId) {
+        int index = indexOf(homeName);
+        if (index >= 0) {
+            double[] newCoords = coords.clone();
+            int[] newWorlds = worldIds.clone();
+            newCoords[index * 3] = x;
+            newCoords[index * 3 + 1] = y;
+            newCoords[index * 3 + 2] = z;
+            newWorlds[index] = worldId;
+            return new PlayerHomes(names, newCoords, newWorlds);
+        }
+
+        int insert = -index - 1;
+        int size = names.length;
+        String[] newNames = new String[size + 1];
+        double[] newCoords = new double[(size + 1) * 3];
+        int[] newWorlds = new int[size + 1];
+
+        System.arraycopy(names, 0, newNames, 0, insert);
+        System.arraycopy(names, insert, newNames, insert + 1, size - insert);
+        newNames[insert] = homeName;
+
+        System.arraycopy(coords, 0, newCoords, 0, insert * 3);
+        System.arraycopy(coords, insert * 3, newCoords, (insert + 1) * 3, (size - insert) * 3);
+        newCoords[insert * 3] = x;
+        newCoords[insert * 3 + 1] = y;
+        newCoords[insert * 3 + 2] = z;
+
+        System.arraycopy(worldIds, 0, newWorlds, 0, insert);
+        System.arraycopy(worldIds, insert, newWorlds, insert + 1, size - insert);
+        newWorlds[insert] = worldId;
+
+        return new PlayerHomes(newNames, newCoords, newWorlds);
+    }
+
+    /**
+     * @return the homes without the named one, or this instance if there is no such home
+     */
+    PlayerHomes without(String homeName) {
+        int index = indexOf(homeName);
+        if (index < 0) {
+            return this;
+        }
+
+        int size = names.length;
+        if (size == 1) {
+            return EMPTY;
+        }
+
+        String[] newNames = new String[size - 1];
+        double[] newCoords = new double[(size - 1) * 3];
+        int[] newWorlds = new int[size - 1];
+
+        System.arraycopy(names, 0, newNames, 0, index);
+        System.arraycopy(names, index + 1, newNames, index, size - index - 1);
+        System.arraycopy(coords, 0, newCoords, 0, index * 3);
+        System.arraycopy(coords, (index + 1) * 3, newCoords, index * 3, (size - index - 1) * 3);
+        System.arraycopy(worldIds, 0, newWorlds, 0, index);
+        System.arraycopy(worldIds, index + 1, newWorlds, index, size - index - 1);
+
+        return new PlayerHomes(newNames, newCoords, newWorlds);
+    }
+
+    /**
+     * @return true if any home is in the world
+     */
+    boolean hasWorld(int worldId) {
+        for (int id : worldIds) {
+            if (id == worldId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move every home in one world to another, or drop them.
+     * @param replacement World id to move the homes to, or -1 to remove them
+     * @return the updated homes, or this instance if none are in the world
+     */
+    PlayerHomes replaceWorld(int worldId, int replacement) {
+        if (!hasWorld(worldId)) {
+            return this;
+        }
+
+        if (replacement >= 0) {
+            int[] newWorlds = worldIds.clone();
+            for (int i = 0; i < newWorlds.length; i++) {
+                if (newWorlds[i] == worldId) {
+                    newWorlds[i] = replacement;
+                }
+            }
+            return new PlayerHomes(names, coords, newWorlds);
+        }
+
+        int kept = 0;
+        for (int id : worldIds) {
+            if (id != worldId) {
+                kept++;
+            }
+        }
+        if (kept == 0) {
+            return EMPTY;
+        }
+        String[] newNames = new String[kept];
+        double[] newCoords = new double[kept * 3];
+        int[] newWorlds = new int[kept];
+        int next = 0;
+        // Filtering keeps the names sorted
+        for (int i = 0; i < names.length; i++) {
+            if (worldIds[i] != worldId) {
+                newNames[next] = names[i];
+                System.arraycopy(coords, i * 3, newCoords, next * 3, 3);
+                newWorlds[next] = worldIds[i];
+                next++;
+            }
+        }
+        return new PlayerHomes(newNames, newCoords, newWorlds);
+    }
+
+    /**
+     * @return an immutable, sorted view of the home names backed by this instance
+     */
+    Set<String> names() {
+        return new NameSet(names);
+    }
+
+    /**
+     * Unpack into a name to location map, used by the file formats that still work on maps.
+     */
+    Map<String, Location> toMap(WorldTable worlds) {
+        Map<String, Location> map = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], location(i, worlds));
+        }
+        return map;
+    }
+
+    /**
+     * @return retained heap of this instance and its arrays, excluding the shared name strings
+     */
+    long estimateBytes() {
+        long self = OBJECT_HEADER + 3 * 4;
+        long nameArray = OBJECT_HEADER + 4L * names.length;
+        long coordArray = OBJECT_HEADER + 8L * coords.length;
+        long worldArray = OBJECT_HEADER + 4L * worldIds.length;
+        return align(self) + align(nameArray) + align(coordArray) + align(worldArray);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static final class NameSet extends AbstractSet<String> {
+        private final String[] names;
+
+        NameSet(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && Arrays.binarySearch(names, o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(names)).iterator();
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+    }
+}
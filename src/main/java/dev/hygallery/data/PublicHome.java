@@ -0,0 +1,71 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A home its owner published in the {@link PublicHomeDirectory}, with its visit count. The position
+ * follows the owner's home when they move it.
+ */
+public final class PublicHome {
+
+    private final UUID owner;
+    private final String ownerName;
+    private final String name;
+    private final String description;
+    private final LongAdder visits = new LongAdder();
+    private double x;
+    private double y;
+    private double z;
+    private String worldName;
+
+    PublicHome(UUID owner, String ownerName, String name, String description,
+               double x, double y, double z, String worldName, long visits) {
+        this.owner = owner;
+        this.ownerName = ownerName;
+        this.name = name;
+        this.description = description;
+        this.visits.add(visits);
+        moveTo(x, y, z, worldName);
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getVisits() {
+        return visits.sum();
+    }
+
+    /**
+     * @return a fresh Location, safe for the caller to keep or mutate
+     */
+    public synchronized Location getLocation() {
+        return new Location(new Vector3d(x, y, z), worldName);
+    }
+
+    synchronized void moveTo(double x, double y, double z, String worldName) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.worldName = worldName;
+    }
+
+    void visited() {
+        visits.increment();
+    }
+}
@@ -0,0 +1,452 @@
+package dev.hygallery.data;
+
+import com.google.gson.*;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Homes their owners published for everyone to visit, stored in plugins/openhomes/public-homes.json.
+ * <p>
+ * Lookups by owner and home name are two hash lookups, so checking access on /home costs the same
+ * however many homes are public. Searching goes through an inverted index from every word of the
+ * owner name, home name and description to the homes containing it, kept sorted so a prefix is one
+ * range of terms. Listings sort by visits from a ranking that is rebuilt when homes are published or
+ * removed, or at most every few seconds while visits come in.
+ * <p>
+ * {@link DataHandler} keeps entries in step with the owners' homes: moving a home moves its entry,
+ * deleting one removes it.
+ */
+public final class PublicHomeDirectory {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    /**
+     * Separates owner and home in /home owner:home, so home names may not contain it
+     */
+    public static final char OWNER_SEPARATOR = ':';
+    private static final long RANKING_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final File file;
+    private final int maxPerPlayer;
+
+    private final Map<UUID, Map<String, PublicHome>> byOwner = new ConcurrentHashMap<>();
+    // Lowercased owner name -> owner, for owner:home lookups, and back. Guarded by this
+    private final Map<String, UUID> ownerIds = new ConcurrentHashMap<>();
+    private final Map<UUID, String> ownerNames = new HashMap<>();
+    // Word -> homes containing it
+    private final ConcurrentSkipListMap<String, Set<PublicHome>> terms = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    private volatile PublicHome[] ranked = new PublicHome[0];
+    private volatile long rankedAt;
+    private volatile boolean rankingStale = true;
+
+    /**
+     * One page of a listing or search.
+     */
+    public static final class Page {
+        private final List<PublicHome> homes;
+        private final int page;
+        private final int pages;
+        private final int total;
+
+        Page(List<PublicHome> homes, int page, int pages, int total) {
+            this.homes = homes;
+            this.page = page;
+            this.pages = pages;
+            this.total = total;
+        }
+
+        public List<PublicHome> getHomes() {
+            return homes;
+        }
+
+        /**
+         * @return the page number, starting at 1
+         */
+        public int getPage() {
+            return page;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    PublicHomeDirectory(File file, int maxPerPlayer) {
+        this.file = file;
+        this.maxPerPlayer = maxPerPlayer;
+    }
+
+    /**
+     * @return the public home, or null if the owner has not published a home with that name
+     */
+    public PublicHome find(UUID owner, String homeName) {
+        Map<String, PublicHome> homes = byOwner.get(owner);
+        return homes == null ? null : homes.get(homeName);
+    }
+
+    /**
+     * @param ownerName Owner name, any case
+     * @return the public home, or null if there is none
+     */
+    public PublicHome find(String ownerName, String homeName) {
+        UUID owner = ownerIds.get(ownerName.toLowerCase());
+        return owner == null ? null : find(owner, homeName);
+    }
+
+    /**
+     * @return the owner's public homes, sorted by name
+     */
+    public List<PublicHome> homesOf(UUID owner) {
+        Map<String, PublicHome> homes = byOwner.get(owner);
+        if (homes == null) {
+            return Collections.emptyList();
+        }
+        List<PublicHome> list = new ArrayList<>(homes.values());
+        list.sort(Comparator.comparing(PublicHome::getName));
+        return list;
+    }
+
+    /**
+     * Count a visit to a public home.
+     */
+    public void visited(PublicHome home) {
+        home.visited();
+        dirty.set(true);
+    }
+
+    /**
+     * @return number of public homes
+     */
+    public int size() {
+        return ranking().length;
+    }
+
+    /**
+     * @param page Page number, starting at 1
+     * @return public homes, most visited first
+     */
+    public Page list(int page, int pageSize) {
+        return page(Arrays.asList(ranking()), page, pageSize);
+    }
+
+    /**
+     * Find homes where every word of the query starts a word of the owner name, home name or description.
+     * @param page Page number, starting at 1
+     * @return matching homes, most visited first
+     */
+    public Page search(String query, int page, int pageSize) {
+        Set<PublicHome> matches = null;
+        for (String word : words(query)) {
+            Set<PublicHome> withWord = new HashSet<>();
+            for (Set<PublicHome> postings : terms.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                withWord.addAll(postings);
+            }
+            if (matches == null) {
+                matches = withWord;
+            } else {
+                matches.retainAll(withWord);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+
+        if (matches == null || matches.isEmpty()) {
+            return page(Collections.emptyList(), page, pageSize);
+        }
+        PublicHome[] ranking = ranking();
+        if (matches.size() * 16 < ranking.length) {
+            return page(Arrays.asList(sortByVisits(matches)), page, pageSize);
+        }
+        // Broad queries walk the cached ranking rather than sorting most of the directory again
+        List<PublicHome> sorted = new ArrayList<>(matches.size());
+        for (PublicHome home : ranking) {
+            if (matches.contains(home)) {
+                sorted.add(home);
+            }
+        }
+        return page(sorted, page, pageSize);
+    }
+
+    /**
+     * Publish a home, or update its description if it is already public. Called by {@link DataHandler}
+     * inside the owner's map update.
+     * @return false if the owner already has the maximum number of public homes
+     */
+    synchronized boolean publish(UUID owner, String ownerName, String homeName, String description,
+                                 double x, double y, double z, String worldName) {
+        Map<String, PublicHome> homes = byOwner.computeIfAbsent(owner, k -> new ConcurrentHashMap<>());
+        PublicHome previous = homes.get(homeName);
+        if (previous == null && homes.size() >= maxPerPlayer) {
+            return false;
+        }
+
+        PublicHome home = new PublicHome(owner, ownerName, homeName, description, x, y, z, worldName,
+                previous == null ? 0 : previous.getVisits());
+        if (previous != null) {
+            unindex(previous);
+        }
+        homes.put(homeName, home);
+        index(home);
+        ownerNamed(owner, ownerName);
+        changed();
+        return true;
+    }
+
+    /**
+     * Point owner:home lookups at the owner's current name, renaming their public homes if it changed.
+     * Called when they join and when they publish. A player who takes over another's old name also
+     * takes over the lookup.
+     */
+    public synchronized void ownerNamed(UUID owner, String ownerName) {
+        Map<String, PublicHome> homes = byOwner.get(owner);
+        if (homes == null) {
+            return;
+        }
+        claimName(owner, ownerName);
+        for (PublicHome home : new ArrayList<>(homes.values())) {
+            if (!home.getOwnerName().equals(ownerName)) {
+                Location location = home.getLocation();
+                PublicHome renamed = new PublicHome(owner, ownerName, home.getName(), home.getDescription(),
+                        location.getCoords().x, location.getCoords().y, location.getCoords().z,
+                        location.getWorldName(), home.getVisits());
+                unindex(home);
+                homes.put(renamed.getName(), renamed);
+                index(renamed);
+                changed();
+            }
+        }
+    }
+
+    private void claimName(UUID owner, String ownerName) {
+        String key = ownerName.toLowerCase();
+        String previous = ownerNames.put(owner, key);
+        if (previous != null && !previous.equals(key)) {
+            ownerIds.remove(previous, owner);
+        }
+        ownerIds.put(key, owner);
+    }
+
+    /**
+     * Remove a home from the directory. Called when the owner unpublishes or deletes it.
+     * @return true if it was public
+     */
+    synchronized boolean remove(UUID owner, String homeName) {
+        Map<String, PublicHome> homes = byOwner.get(owner);
+        PublicHome home = homes == null ? null : homes.remove(homeName);
+        if (home == null) {
+            return false;
+        }
+        unindex(home);
+        if (homes.isEmpty()) {
+            // The name is free for whoever uses it next
+            byOwner.remove(owner);
+            String name = ownerNames.remove(owner);
+            if (name != null) {
+                ownerIds.remove(name, owner);
+            }
+        }
+        changed();
+        return true;
+    }
+
+    /**
+     * Follow a home its owner moved. Called inside the owner's map update.
+     */
+    void moved(UUID owner, String homeName, double x, double y, double z, String worldName) {
+        PublicHome home = find(owner, homeName);
+        if (home != null) {
+            home.moveTo(x, y, z, worldName);
+            dirty.set(true);
+        }
+    }
+
+    synchronized void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JsonArray entries = JsonParser.parseString(Files.readString(file.toPath())).getAsJsonArray();
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                UUID owner = HomeTable.storedKey(required(entry, "owner").getAsString());
+                if (owner == null) {
+                    continue;
+                }
+                String ownerName = required(entry, "ownerName").getAsString();
+                PublicHome home = new PublicHome(owner, ownerName, required(entry, "name").getAsString(),
+                        required(entry, "description").getAsString(), required(entry, "x").getAsDouble(),
+                        required(entry, "y").getAsDouble(), required(entry, "z").getAsDouble(),
+                        required(entry, "world").getAsString(), required(entry, "visits").getAsLong());
+                byOwner.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(home.getName(), home);
+                claimName(owner, ownerName);
+                index(home);
+            }
+            LOGGER.atInfo().log("Loaded " + entries.size() + " public homes");
+        } catch (IOException | JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            LOGGER.atSevere().withCause(e).log("Error reading " + file.getName() + ", public homes are empty");
+        }
+    }
+
+    private static JsonElement required(JsonObject entry, String key) {
+        JsonElement value = entry.get(key);
+        if (value == null) {
+            throw new JsonParseException("Public home without " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Write the directory if anything changed since the last save. Synchronized so concurrent saves
+     * never share the temp file, and a caller that finds nothing dirty knows the last write finished.
+     * @return true if there was nothing to write or the write succeeded
+     */
+    synchronized boolean saveIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return true;
+        }
+
+        JsonArray entries = new JsonArray();
+        for (Map<String, PublicHome> homes : byOwner.values()) {
+            for (PublicHome home : homes.values()) {
+                Location location = home.getLocation();
+                JsonObject entry = new JsonObject();
+                entry.addProperty("owner", home.getOwner().toString());
+                entry.addProperty("ownerName", home.getOwnerName());
+                entry.addProperty("name", home.getName());
+                entry.addProperty("description", home.getDescription());
+                entry.addProperty("world", location.getWorldName());
+                entry.addProperty("x", location.getCoords().x);
+                entry.addProperty("y", location.getCoords().y);
+                entry.addProperty("z", location.getCoords().z);
+                entry.addProperty("visits", home.getVisits());
+                entries.add(entry);
+            }
+        }
+
+        try {
+            AtomicFiles.write(file, new Gson().toJson(entries).getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving public homes");
+            dirty.set(true);
+            return false;
+        }
+    }
+
+    private void index(PublicHome home) {
+        for (String word : words(home)) {
+            terms.computeIfAbsent(word, k -> ConcurrentHashMap.newKeySet()).add(home);
+        }
+    }
+
+    private void unindex(PublicHome home) {
+        for (String word : words(home)) {
+            terms.computeIfPresent(word, (k, postings) -> {
+                postings.remove(home);
+                return postings.isEmpty() ? null : postings;
+            });
+        }
+    }
+
+    private void changed() {
+        rankingStale = true;
+        dirty.set(true);
+    }
+
+    /**
+     * @return every public home, most visited first, at most a few seconds out of date for visits
+     */
+    private PublicHome[] ranking() {
+        if (!rankingStale && System.nanoTime() - rankedAt < RANKING_MAX_AGE_NANOS) {
+            return ranked;
+        }
+        synchronized (this) {
+            if (rankingStale || System.nanoTime() - rankedAt >= RANKING_MAX_AGE_NANOS) {
+                rankingStale = false;
+                List<PublicHome> all = new ArrayList<>();
+                for (Map<String, PublicHome> homes : byOwner.values()) {
+                    all.addAll(homes.values());
+                }
+                ranked = sortByVisits(all);
+                rankedAt = System.nanoTime();
+            }
+            return ranked;
+        }
+    }
+
+    /**
+     * Sort on a snapshot of the visit counts, since visits keep coming in while sorting.
+     * Ties go by owner name, then home name.
+     */
+    private static PublicHome[] sortByVisits(Collection<PublicHome> homes) {
+        PublicHome[] sorted = homes.toArray(new PublicHome[0]);
+        long[] visits = new long[sorted.length];
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            visits[i] = sorted[i].getVisits();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byVisits = Long.compare(visits[b], visits[a]);
+            if (byVisits != 0) {
+                return byVisits;
+            }
+            int byOwner = sorted[a].getOwnerName().compareTo(sorted[b].getOwnerName());
+            return byOwner != 0 ? byOwner : sorted[a].getName().compareTo(sorted[b].getName());
+        });
+
+        PublicHome[] result = new PublicHome[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = sorted[order[i]];
+        }
+        return result;
+    }
+
+    private static Page page(List<PublicHome> homes, int page, int pageSize) {
+        int pages = Math.max(1, (homes.size() + pageSize - 1) / pageSize);
+        int current = Math.max(1, Math.min(page, pages));
+        int from = (current - 1) * pageSize;
+        int to = Math.min(homes.size(), from + pageSize);
+        return new Page(new ArrayList<>(homes.subList(from, to)), current, pages, homes.size());
+    }
+
+    private static Set<String> words(PublicHome home) {
+        Set<String> words = words(home.getOwnerName());
+        words.addAll(words(home.getName()));
+        words.addAll(words(home.getDescription()));
+        return words;
+    }
+
+    /**
+     * @return the lowercased runs of letters and digits in the text
+     */
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,184 @@
+package dev.hygallery.data;
+
+import com.google.gson.*;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * One JSON file per player under plugins/openhomes/players/&lt;first two uuid chars&gt;/&lt;uuid&gt;.json.
+ * Each file holds the same {name: [x, y, z, world]} object a player has inside homeData.json, or
+ * with shared storage {"version": n, "homes": {name: [x, y, z, world]}}. Both layouts are read
+ * by either backend.
+ */
+class ShardedHomeFiles {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final File root;
+    private final Gson gson = new Gson();
+
+    ShardedHomeFiles(File root) {
+        this.root = root;
+    }
+
+    boolean exists() {
+        return root.isDirectory();
+    }
+
+    File getRoot() {
+        return root;
+    }
+
+    File fileFor(String uuid) {
+        String bucket = uuid.length() >= 2 ? uuid.substring(0, 2) : "_";
+        return new File(new File(root, bucket), uuid + ".json");
+    }
+
+    /**
+     * Read one player's homes.
+     * @return the player's homes, empty if they have none on disk
+     */
+    Map<String, Location> load(String uuid) throws IOException {
+        Map<String, Location> playerHomes = new HashMap<>();
+        load(uuid, playerHomes);
+        return playerHomes;
+    }
+
+    /**
+     * Read one player's homes into a map.
+     * @return the file's version stamp, 0 if the file is missing or has none
+     */
+    long load(String uuid, Map<String, Location> playerHomes) throws IOException {
+        File file = fileFor(uuid);
+        String content;
+        try {
+            content = Files.readString(file.toPath());
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+
+        long version = 0;
+        try {
+            JsonObject userHomes = JsonParser.parseString(content).getAsJsonObject();
+            JsonElement versioned = userHomes.get("homes");
+            if (versioned != null && versioned.isJsonObject()) {
+                JsonElement stamp = userHomes.get("version");
+                version = stamp == null ? 0 : stamp.getAsLong();
+                userHomes = versioned.getAsJsonObject();
+            }
+            for (Map.Entry<String, JsonElement> homeEntry : userHomes.entrySet()) {
+                JsonArray homeData = homeEntry.getValue().getAsJsonArray();
+
+                if (homeData.size() == 4) {
+                    Vector3d coords = new Vector3d(homeData.get(0).getAsDouble(),
+                            homeData.get(1).getAsDouble(), homeData.get(2).getAsDouble());
+                    playerHomes.put(homeEntry.getKey(), new Location(coords, homeData.get(3).getAsString()));
+                } else {
+                    LOGGER.atWarning().log("Invalid home data for " + uuid + "." + homeEntry.getKey());
+                }
+            }
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new IOException("Invalid home file for " + uuid, e);
+        }
+        return version;
+    }
+
+    /**
+     * Call the consumer for every player file on disk, in no particular order.
+     */
+    void forEachStored(BiConsumer<String, Map<String, Location>> consumer) throws IOException {
+        File[] buckets = root.listFiles(File::isDirectory);
+        if (buckets == null) {
+            return;
+        }
+
+        for (File bucket : buckets) {
+            File[] files = bucket.listFiles((dir, name) -> name.endsWith(".json"));
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                consumer.accept(uuidOf(file.getName()), load(uuidOf(file.getName())));
+            }
+        }
+    }
+
+    /**
+     * Write one player's homes, removing the file when they have none left.
+     * @return bytes written
+     */
+    long save(String uuid, Map<String, Location> playerHomes) throws IOException {
+        AtomicFiles.Batch batch = new AtomicFiles.Batch();
+        long written = save(uuid, playerHomes, batch);
+        batch.commit();
+        return written;
+    }
+
+    /**
+     * Stage one player's file in a batch; nothing replaces the current file until the batch commits.
+     * @return bytes written
+     */
+    long save(String uuid, Map<String, Location> playerHomes, AtomicFiles.Batch batch) throws IOException {
+        File file = fileFor(uuid);
+        if (playerHomes.isEmpty()) {
+            batch.delete(file);
+            return 0;
+        }
+
+        createBucket(file);
+        return batch.write(file, gson.toJson(toJson(playerHomes)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stage one player's file with a version stamp. The file is kept even when the player has no
+     * homes left, so the stamp keeps counting up.
+     * @return bytes written
+     */
+    long save(String uuid, Map<String, Location> playerHomes, long version, AtomicFiles.Batch batch) throws IOException {
+        JsonObject versioned = new JsonObject();
+        versioned.addProperty("version", version);
+        versioned.add("homes", toJson(playerHomes));
+        File file = fileFor(uuid);
+        createBucket(file);
+        return batch.write(file, gson.toJson(versioned).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void createBucket(File file) throws IOException {
+        File bucket = file.getParentFile();
+        if (!bucket.exists() && !bucket.mkdirs()) {
+            throw new IOException("Failed to create " + bucket.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the uuid a player file belongs to, or null for other files such as temp files
+     */
+    static String uuidOf(String fileName) {
+        return fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - ".json".length()) : null;
+    }
+
+    private JsonObject toJson(Map<String, Location> playerHomes) {
+        JsonObject userHomes = new JsonObject();
+        for (Map.Entry<String, Location> homeEntry : playerHomes.entrySet()) {
+            Location location = homeEntry.getValue();
+            Vector3d coords = location.getCoords();
+
+            JsonArray homeData = new JsonArray();
+            homeData.add(coords.x);
+            homeData.add(coords.y);
+            homeData.add(coords.z);
+            homeData.add(location.getWorldName());
+            userHomes.add(homeEntry.getKey(), homeData);
+        }
+        return userHomes;
+    }
+}
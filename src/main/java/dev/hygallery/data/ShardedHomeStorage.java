@@ -0,0 +1,183 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * One file per player under players/, loaded on demand. Only players changed since the last
+ * flush are written.
+ */
+final class ShardedHomeStorage implements HomeStorage {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final HomeTable table;
+    private final File dataFile;
+    private final ShardedHomeFiles shards;
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    ShardedHomeStorage(HomeTable table, File dataFolder) {
+        this.table = table;
+        this.dataFile = new File(dataFolder, "homeData.json");
+        this.shards = new ShardedHomeFiles(new File(dataFolder, "players"));
+    }
+
+    @Override
+    public String getName() {
+        return "sharded";
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsEviction() {
+        return true;
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (!shards.exists() && dataFile.exists()) {
+            migrateToShards();
+        }
+        LOGGER.atInfo().log("Sharded storage ready, player homes load on demand");
+    }
+
+    @Override
+    public PlayerHomes loadPlayer(UUID uuid) throws IOException {
+        return table.pack(shards.load(uuid.toString()));
+    }
+
+    @Override
+    public void recordSet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+        dirtyPlayers.add(uuid);
+    }
+
+    @Override
+    public void recordDelete(UUID uuid, String homeName) {
+        dirtyPlayers.add(uuid);
+    }
+
+    /**
+     * Stages every dirty player's file and commits them together, so one flush costs one round of syncs.
+     */
+    @Override
+    public synchronized boolean flush() {
+        AtomicFiles.Batch batch = new AtomicFiles.Batch();
+        List<UUID> staged = new ArrayList<>();
+        long stagedBytes = 0;
+        boolean allSaved = true;
+        for (UUID uuid : dirtyPlayers) {
+            if (!dirtyPlayers.remove(uuid)) {
+                continue;
+            }
+            try {
+                stagedBytes += stagePlayer(uuid, batch);
+                staged.add(uuid);
+            } catch (IOException e) {
+                LOGGER.atSevere().withCause(e).log("Error saving homes for UUID: " + uuid);
+                dirtyPlayers.add(uuid);
+                allSaved = false;
+            }
+        }
+
+        try {
+            batch.commit();
+            bytesWritten.add(stagedBytes);
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving homes for " + staged.size() + " players");
+            dirtyPlayers.addAll(staged);
+            return false;
+        }
+        return allSaved;
+    }
+
+    @Override
+    public boolean isDirty(UUID uuid) {
+        return dirtyPlayers.contains(uuid);
+    }
+
+    /**
+     * Writes under the storage lock so writes for the same player never reorder.
+     */
+    @Override
+    public synchronized boolean flushPlayer(UUID uuid) {
+        if (dirtyPlayers.remove(uuid) && !writePlayer(uuid)) {
+            dirtyPlayers.add(uuid);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<UUID, PlayerHomes> consumer) throws IOException {
+        shards.forEachStored((uuid, playerHomes) -> {
+            UUID playerId = HomeTable.storedKey(uuid);
+            if (playerId != null) {
+                consumer.accept(playerId, table.pack(playerHomes));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private boolean writePlayer(UUID uuid) {
+        AtomicFiles.Batch batch = new AtomicFiles.Batch();
+        try {
+            long written = stagePlayer(uuid, batch);
+            batch.commit();
+            bytesWritten.add(written);
+            return true;
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving homes for UUID: " + uuid);
+            return false;
+        }
+    }
+
+    private long stagePlayer(UUID uuid, AtomicFiles.Batch batch) throws IOException {
+        PlayerHomes playerHomes = table.map().get(uuid);
+        if (playerHomes == null) {
+            // Not loaded, nothing in memory to write
+            return 0;
+        }
+        return shards.save(uuid.toString(), playerHomes.toMap(table.worlds()), batch);
+    }
+
+    private void migrateToShards() throws IOException {
+        LOGGER.atInfo().log("Migrating homeData.json to per-player files...");
+        int[] migrated = {0};
+        AtomicFiles.Batch batch = new AtomicFiles.Batch();
+        // Stages files one player at a time, so this stays on the reading thread
+        JsonHomeStorage.read(dataFile, 1, block -> {
+            try {
+                shards.save(block.uuid, table.pack(block).toMap(table.worlds()), batch);
+                migrated[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        batch.commit();
+        JsonHomeStorage.retire(dataFile, migrated[0]);
+    }
+}
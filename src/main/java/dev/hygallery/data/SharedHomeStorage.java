@@ -0,0 +1,415 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import dev.hygallery.config.PluginConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player files under players/ shared by several servers, for example on a network volume.
+ * <p>
+ * Every file carries a version stamp that goes up by one with each write. Writers hold an exclusive
+ * lock on players/.lock while they write; a server whose copy of a player is older than the file
+ * on disk merges its unwritten changes into the file's homes home by home, so concurrent changes
+ * to different homes both survive and the last server to write wins for the same home.
+ * <p>
+ * Every player is kept in memory as with json storage. A watcher thread picks up files other
+ * servers wrote and hands only those players to {@link DataHandler}. File system events are
+ * backed by a periodic scan of recently modified files, since network file systems often do not
+ * report changes made by other machines.
+ */
+final class SharedHomeStorage implements HomeStorage {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long WATCH_POLL_MILLIS = 100;
+    // File times on network volumes can lag, so scans look a little further back than the last one
+    private static final long SCAN_SLACK_MILLIS = 2000;
+
+    private final HomeTable table;
+    private final File dataFile;
+    private final ShardedHomeFiles shards;
+    private final long rescanMillis;
+
+    // Version of each player's file that the in-memory homes are based on
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    // Changes not written yet, home name -> location, null for a deleted home
+    private final Map<UUID, Map<String, Location>> pending = new ConcurrentHashMap<>();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder remoteChanges = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+
+    private volatile ChangeListener listener = (uuid, stored) -> {
+    };
+    private FileChannel lockChannel;
+    private long loadedAt;
+    private Thread watcher;
+    private volatile boolean running;
+
+    SharedHomeStorage(HomeTable table, File dataFolder, PluginConfig config) {
+        this.table = table;
+        this.dataFile = new File(dataFolder, "homeData.json");
+        this.shards = new ShardedHomeFiles(new File(dataFolder, "players"));
+        this.rescanMillis = TimeUnit.SECONDS.toMillis(config.getSharedRescanSeconds());
+    }
+
+    @Override
+    public String getName() {
+        return "shared";
+    }
+
+    @Override
+    public boolean isLazy() {
+        return false;
+    }
+
+    @Override
+    public void open() throws IOException {
+        File root = shards.getRoot();
+        if (!root.exists() && !root.mkdirs()) {
+            throw new IOException("Failed to create " + root.getAbsolutePath());
+        }
+        lockChannel = FileChannel.open(new File(root, ".lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        if (dataFile.exists() && !hasPlayerFiles()) {
+            migrateToShards();
+        }
+
+        loadedAt = System.currentTimeMillis();
+        File[] buckets = root.listFiles(File::isDirectory);
+        if (buckets != null) {
+            for (File bucket : buckets) {
+                loadBucket(bucket);
+            }
+        }
+        LOGGER.atInfo().log("Shared storage loaded " + table.map().size() + " players");
+    }
+
+    @Override
+    public void recordSet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+        Location location = new Location(new Vector3d(x, y, z), worldName);
+        pending.compute(uuid, (k, changes) -> {
+            Map<String, Location> updated = changes == null ? new HashMap<>() : changes;
+            updated.put(homeName, location);
+            return updated;
+        });
+    }
+
+    @Override
+    public void recordDelete(UUID uuid, String homeName) {
+        pending.compute(uuid, (k, changes) -> {
+            Map<String, Location> updated = changes == null ? new HashMap<>() : changes;
+            updated.put(homeName, null);
+            return updated;
+        });
+    }
+
+    @Override
+    public PlayerHomes withPending(UUID uuid, PlayerHomes stored) {
+        Map<String, Location> changes = pending.get(uuid);
+        if (changes == null) {
+            return stored;
+        }
+        return table.pack(apply(stored.toMap(table.worlds()), changes));
+    }
+
+    /**
+     * Writes every player with unwritten changes under the cross-server lock. A player whose file
+     * moved on since this server last read it gets the file's homes with this server's changes on top.
+     */
+    @Override
+    public synchronized boolean flush() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+
+        Map<UUID, Map<String, Location>> flushing = new HashMap<>();
+        for (UUID uuid : pending.keySet()) {
+            Map<String, Location> changes = pending.remove(uuid);
+            if (changes != null) {
+                flushing.put(uuid, changes);
+            }
+        }
+
+        Map<UUID, PlayerHomes> merged = new HashMap<>();
+        Map<UUID, Long> written = new HashMap<>();
+        try {
+            FileLock lock = lockChannel.lock();
+            try {
+                AtomicFiles.Batch batch = new AtomicFiles.Batch();
+                long stagedBytes = 0;
+                for (Map.Entry<UUID, Map<String, Location>> entry : flushing.entrySet()) {
+                    UUID uuid = entry.getKey();
+                    Map<String, Location> onDisk = new HashMap<>();
+                    long version = shards.load(uuid.toString(), onDisk);
+
+                    Map<String, Location> playerHomes;
+                    if (version == versions.getOrDefault(uuid, 0L)) {
+                        PlayerHomes current = table.map().get(uuid);
+                        playerHomes = current == null ? new HashMap<>() : current.toMap(table.worlds());
+                    } else {
+                        // Another server wrote the player since we read them
+                        playerHomes = apply(onDisk, entry.getValue());
+                        merged.put(uuid, table.pack(playerHomes));
+                    }
+                    stagedBytes += shards.save(uuid.toString(), playerHomes, version + 1, batch);
+                    written.put(uuid, version + 1);
+                }
+                batch.commit();
+                bytesWritten.add(stagedBytes);
+                versions.putAll(written);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.atSevere().withCause(e).log("Error saving homes for " + flushing.size() + " players");
+            // Put the changes back under any made since, which are newer
+            flushing.forEach((uuid, changes) -> pending.merge(uuid, changes, (newer, older) -> {
+                older.putAll(newer);
+                return older;
+            }));
+            return false;
+        }
+
+        merges.add(merged.size());
+        merged.forEach(listener::changed);
+        return true;
+    }
+
+    @Override
+    public boolean isDirty(UUID uuid) {
+        return pending.containsKey(uuid);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public void watch(ChangeListener listener) {
+        this.listener = listener;
+        this.running = true;
+        this.watcher = new Thread(this::watchLoop, "OpenHomes-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+            try {
+                watcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        LOGGER.atInfo().log("Shared storage applied " + remoteChanges.sum() + " changes from other servers, merged " +
+                merges.sum() + " conflicting writes");
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Error closing shared store lock");
+        }
+    }
+
+    private void watchLoop() {
+        Path root = shards.getRoot().toPath();
+        Map<WatchKey, Path> buckets = new HashMap<>();
+        // Start with a scan for files written between loading and watching
+        long lastScan = loadedAt;
+        boolean scanNow = true;
+
+        try (WatchService watchService = root.getFileSystem().newWatchService()) {
+            root.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            File[] existing = root.toFile().listFiles(File::isDirectory);
+            if (existing != null) {
+                for (File bucket : existing) {
+                    buckets.put(registerBucket(watchService, bucket.toPath()), bucket.toPath());
+                }
+            }
+
+            while (running) {
+                Set<String> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.poll(WATCH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                // Take every event already queued, so a burst of writes is read once per player
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were lost, look at every file
+                            lastScan = 0;
+                            scanNow = true;
+                            continue;
+                        }
+                        Path name = (Path) event.context();
+                        Path bucket = buckets.get(key);
+                        if (bucket == null) {
+                            // A new bucket directory, files may have landed before it was watched
+                            Path created = root.resolve(name);
+                            if (Files.isDirectory(created)) {
+                                buckets.put(registerBucket(watchService, created), created);
+                                collect(created.toFile(), 0, changed);
+                            }
+                        } else {
+                            String uuid = ShardedHomeFiles.uuidOf(name.toString());
+                            if (uuid != null) {
+                                changed.add(uuid);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        buckets.remove(key);
+                    }
+                    key = watchService.poll();
+                }
+
+                long now = System.currentTimeMillis();
+                if (scanNow || rescanMillis > 0 && now - lastScan >= rescanMillis) {
+                    File[] all = root.toFile().listFiles(File::isDirectory);
+                    if (all != null) {
+                        for (File bucket : all) {
+                            collect(bucket, lastScan - SCAN_SLACK_MILLIS, changed);
+                        }
+                    }
+                    lastScan = now;
+                    scanNow = false;
+                }
+
+                for (String uuid : changed) {
+                    reload(uuid);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Could not watch the shared store, changes by other servers are not picked up");
+        }
+    }
+
+    private static WatchKey registerBucket(WatchService watchService, Path bucket) throws IOException {
+        return bucket.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Add the players in a bucket whose files were modified at or after since.
+     */
+    private static void collect(File bucket, long since, Set<String> changed) {
+        File[] files = bucket.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.lastModified() >= since) {
+                changed.add(ShardedHomeFiles.uuidOf(file.getName()));
+            }
+        }
+    }
+
+    /**
+     * Read a player's file and pass it on if it is newer than what this server has, which skips
+     * this server's own writes.
+     */
+    private synchronized void reload(String uuid) {
+        UUID playerId = HomeTable.storedKey(uuid);
+        if (playerId == null) {
+            return;
+        }
+
+        Map<String, Location> onDisk = new HashMap<>();
+        long version;
+        try {
+            version = shards.load(uuid, onDisk);
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Could not read changed homes for " + uuid);
+            return;
+        }
+        if (version == 0 && !shards.fileFor(uuid).exists()) {
+            // Removed by hand, only act on it if this server knew the file
+            if (versions.remove(playerId) == null) {
+                return;
+            }
+        } else if (version <= versions.getOrDefault(playerId, 0L)) {
+            return;
+        }
+
+        if (version > 0) {
+            versions.put(playerId, version);
+        }
+        remoteChanges.increment();
+        listener.changed(playerId, table.pack(onDisk));
+    }
+
+    private void loadBucket(File bucket) throws IOException {
+        File[] files = bucket.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String uuid = ShardedHomeFiles.uuidOf(file.getName());
+            UUID playerId = HomeTable.storedKey(uuid);
+            if (playerId == null) {
+                continue;
+            }
+            Map<String, Location> playerHomes = new HashMap<>();
+            versions.put(playerId, shards.load(uuid, playerHomes));
+            if (!playerHomes.isEmpty()) {
+                table.map().put(playerId, table.pack(playerHomes));
+            }
+        }
+    }
+
+    private boolean hasPlayerFiles() {
+        File[] buckets = shards.getRoot().listFiles(File::isDirectory);
+        return buckets != null && buckets.length > 0;
+    }
+
+    private void migrateToShards() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            // Another server may have migrated while this one waited for the lock
+            if (!dataFile.exists() || hasPlayerFiles()) {
+                return;
+            }
+            LOGGER.atInfo().log("Migrating homeData.json to shared per-player files...");
+            int[] migrated = {0};
+            AtomicFiles.Batch batch = new AtomicFiles.Batch();
+            JsonHomeStorage.read(dataFile, 1, block -> {
+                try {
+                    shards.save(block.uuid, table.pack(block).toMap(table.worlds()), 1, batch);
+                    migrated[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            batch.commit();
+            JsonHomeStorage.retire(dataFile, migrated[0]);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private static Map<String, Location> apply(Map<String, Location> playerHomes, Map<String, Location> changes) {
+        changes.forEach((name, location) -> {
+            if (location == null) {
+                playerHomes.remove(name);
+            } else {
+                playerHomes.put(name, location);
+            }
+        });
+        return playerHomes;
+    }
+}
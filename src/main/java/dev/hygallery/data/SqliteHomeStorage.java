@@ -0,0 +1,295 @@
+package dev.hygallery.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Embedded SQLite database in homes.db, one row per home keyed by (uuid, name).
+ * Players load on demand with an indexed primary-key read, and every change is written
+ * as a single-row upsert or delete. Flushes commit all pending rows in one transaction.
+ */
+final class SqliteHomeStorage implements HomeStorage {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS homes (" +
+            "uuid TEXT NOT NULL, name TEXT NOT NULL, world TEXT NOT NULL, " +
+            "x REAL NOT NULL, y REAL NOT NULL, z REAL NOT NULL, " +
+            "PRIMARY KEY (uuid, name)) WITHOUT ROWID";
+    private static final String SELECT_PLAYER = "SELECT name, x, y, z, world FROM homes WHERE uuid = ?";
+    private static final String SELECT_ALL = "SELECT uuid, name, x, y, z, world FROM homes ORDER BY uuid";
+    private static final String UPSERT = "INSERT INTO homes (uuid, name, world, x, y, z) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (uuid, name) DO UPDATE SET world = excluded.world, x = excluded.x, y = excluded.y, z = excluded.z";
+    private static final String DELETE = "DELETE FROM homes WHERE uuid = ? AND name = ?";
+
+    /**
+     * One pending row change. worldName is null for deletes.
+     */
+    private record Change(long seq, UUID uuid, String homeName, double x, double y, double z, String worldName) {
+    }
+
+    private final HomeTable table;
+    private final File dataFile;
+    private final File databaseFile;
+
+    // Changes are queued in map order and written by the next flush
+    private final ConcurrentLinkedDeque<Change> pending = new ConcurrentLinkedDeque<>();
+    // Sequence of each player's newest queued change, cleared once that change is committed
+    private final ConcurrentHashMap<UUID, Long> pendingSeq = new ConcurrentHashMap<>();
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    // SQLite allows one writer, so the connection is used under the storage lock
+    private Connection connection;
+    private PreparedStatement selectPlayer;
+    private PreparedStatement upsert;
+    private PreparedStatement delete;
+
+    SqliteHomeStorage(HomeTable table, File dataFolder) {
+        this.table = table;
+        this.dataFile = new File(dataFolder, "homeData.json");
+        this.databaseFile = new File(dataFolder, "homes.db");
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsEviction() {
+        return true;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        boolean empty;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute(CREATE_TABLE);
+            }
+            this.selectPlayer = connection.prepareStatement(SELECT_PLAYER);
+            this.upsert = connection.prepareStatement(UPSERT);
+            this.delete = connection.prepareStatement(DELETE);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT 1 FROM homes LIMIT 1")) {
+                empty = !rows.next();
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Could not open " + databaseFile.getAbsolutePath(), e);
+        }
+        LOGGER.atInfo().log("Opened SQLite home database at " + databaseFile.getAbsolutePath());
+
+        if (empty && dataFile.exists()) {
+            migrateFromJson();
+        }
+    }
+
+    @Override
+    public synchronized PlayerHomes loadPlayer(UUID uuid) throws IOException {
+        Map<String, Location> playerHomes = new HashMap<>();
+        try {
+            selectPlayer.setString(1, uuid.toString());
+            try (ResultSet rows = selectPlayer.executeQuery()) {
+                while (rows.next()) {
+                    playerHomes.put(rows.getString(1), location(rows, 2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error loading homes for UUID: " + uuid, e);
+        }
+        return table.pack(playerHomes);
+    }
+
+    @Override
+    public void recordSet(UUID uuid, String homeName, double x, double y, double z, String worldName) {
+        enqueue(new Change(nextSeq.incrementAndGet(), uuid, homeName, x, y, z, worldName));
+    }
+
+    @Override
+    public void recordDelete(UUID uuid, String homeName) {
+        enqueue(new Change(nextSeq.incrementAndGet(), uuid, homeName, 0, 0, 0, null));
+    }
+
+    private void enqueue(Change change) {
+        pending.addLast(change);
+        pendingSeq.put(change.uuid(), change.seq());
+    }
+
+    /**
+     * Commit every queued change in one transaction. On failure the changes go back to the
+     * front of the queue in their original order and the next flush retries them.
+     */
+    @Override
+    public synchronized boolean flush() {
+        if (pending.isEmpty() || connection == null) {
+            return true;
+        }
+
+        List<Change> batch = new ArrayList<>();
+        for (Change change; (change = pending.pollFirst()) != null; ) {
+            batch.add(change);
+        }
+
+        try {
+            connection.setAutoCommit(false);
+            for (Change change : batch) {
+                write(change);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            LOGGER.atSevere().withCause(e).log("Error writing " + batch.size() + " home changes to SQLite");
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                LOGGER.atWarning().withCause(rollbackError).log("Error rolling back home changes");
+            }
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i));
+            }
+            return false;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOGGER.atWarning().withCause(e).log("Error restoring SQLite auto-commit");
+            }
+        }
+
+        // A player stays dirty if they changed again while the batch was being written
+        for (Change change : batch) {
+            pendingSeq.remove(change.uuid(), change.seq());
+        }
+        return true;
+    }
+
+    private void write(Change change) throws SQLException {
+        if (change.worldName() == null) {
+            delete.setString(1, change.uuid().toString());
+            delete.setString(2, change.homeName());
+            delete.executeUpdate();
+            return;
+        }
+        upsert.setString(1, change.uuid().toString());
+        upsert.setString(2, change.homeName());
+        upsert.setString(3, change.worldName());
+        upsert.setDouble(4, change.x());
+        upsert.setDouble(5, change.y());
+        upsert.setDouble(6, change.z());
+        upsert.executeUpdate();
+    }
+
+    @Override
+    public boolean isDirty(UUID uuid) {
+        return pendingSeq.containsKey(uuid);
+    }
+
+    @Override
+    public boolean flushPlayer(UUID uuid) {
+        return !isDirty(uuid) || flush();
+    }
+
+    @Override
+    public synchronized void forEachStored(BiConsumer<UUID, PlayerHomes> consumer) throws IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            String current = null;
+            Map<String, Location> playerHomes = new HashMap<>();
+            while (rows.next()) {
+                String uuid = rows.getString(1);
+                if (!uuid.equals(current)) {
+                    emit(current, playerHomes, consumer);
+                    current = uuid;
+                    playerHomes = new HashMap<>();
+                }
+                playerHomes.put(rows.getString(2), location(rows, 3));
+            }
+            emit(current, playerHomes, consumer);
+        } catch (SQLException e) {
+            throw new IOException("Error reading homes from SQLite", e);
+        }
+    }
+
+    private void emit(String uuid, Map<String, Location> playerHomes, BiConsumer<UUID, PlayerHomes> consumer) {
+        UUID playerId = uuid == null ? null : HomeTable.storedKey(uuid);
+        if (playerId != null) {
+            consumer.accept(playerId, table.pack(playerHomes));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        flush();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.atWarning().withCause(e).log("Error closing SQLite home database");
+        }
+        connection = null;
+    }
+
+    /**
+     * Read x, y, z and world from consecutive columns starting at column.
+     */
+    private static Location location(ResultSet rows, int column) throws SQLException {
+        return new Location(new Vector3d(
+                rows.getDouble(column), rows.getDouble(column + 1), rows.getDouble(column + 2)),
+                rows.getString(column + 3));
+    }
+
+    private void migrateFromJson() throws IOException {
+        LOGGER.atInfo().log("Migrating homeData.json to SQLite...");
+        int[] migrated = {0};
+        try {
+            connection.setAutoCommit(false);
+            JsonHomeStorage.read(dataFile, 1, block -> {
+                try {
+                    for (int i = 0; i < block.size; i++) {
+                        upsert.setString(1, block.uuid);
+                        upsert.setString(2, block.names[i]);
+                        upsert.setString(3, block.worlds[i]);
+                        upsert.setDouble(4, block.coords[i * 3]);
+                        upsert.setDouble(5, block.coords[i * 3 + 1]);
+                        upsert.setDouble(6, block.coords[i * 3 + 2]);
+                        upsert.addBatch();
+                    }
+                    upsert.executeBatch();
+                    migrated[0]++;
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new IOException("Could not migrate homeData.json to SQLite, original left in place", e);
+        }
+        JsonHomeStorage.retire(dataFile, migrated[0]);
+    }
+}
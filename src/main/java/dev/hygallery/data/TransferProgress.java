@@ -0,0 +1,17 @@
+package dev.hygallery.data;
+
+/**
+ * Receives progress of a bulk import or export. May be called from worker threads.
+ */
+@FunctionalInterface
+public interface TransferProgress {
+
+    TransferProgress NONE = (homes, percent) -> {
+    };
+
+    /**
+     * @param homes Homes handled so far
+     * @param percent Share of the input read, or -1 when the total is not known up front
+     */
+    void report(long homes, int percent);
+}
@@ -0,0 +1,35 @@
+package dev.hygallery.data;
+
+/**
+ * Counts from dropping or renaming a world's homes.
+ */
+public final class WorldChangeResult {
+
+    static final WorldChangeResult NONE = new WorldChangeResult(0, 0);
+
+    private final int changed;
+    private final int failedOwners;
+
+    WorldChangeResult(int changed, int failedOwners) {
+        this.changed = changed;
+        this.failedOwners = failedOwners;
+    }
+
+    WorldChangeResult plus(WorldChangeResult other) {
+        return new WorldChangeResult(changed + other.changed, failedOwners + other.failedOwners);
+    }
+
+    /**
+     * @return homes deleted or moved
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return owners whose homes could not be loaded and were left as they were
+     */
+    public int getFailedOwners() {
+        return failedOwners;
+    }
+}
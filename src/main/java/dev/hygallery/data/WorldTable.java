@@ -0,0 +1,67 @@
+package dev.hygallery.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns world names to small integer ids so homes can store an int instead of a String.
+ * Ids are never reused; lookups in both directions are lock-free.
+ */
+public class WorldTable {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[8];
+    private int size;
+
+    /**
+     * @param worldName World name
+     * @return id for the name, assigned on first use
+     */
+    public int idOf(String worldName) {
+        Integer id = ids.get(worldName);
+        if (id != null) {
+            return id;
+        }
+        return assign(worldName);
+    }
+
+    /**
+     * @return id for the name, or -1 if it has never been used
+     */
+    int find(String worldName) {
+        Integer id = ids.get(worldName);
+        return id == null ? -1 : id;
+    }
+
+    private synchronized int assign(String worldName) {
+        Integer id = ids.get(worldName);
+        if (id != null) {
+            return id;
+        }
+
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = worldName;
+        // Publish the array before the id so readers that see the id also see the name
+        names = current;
+        ids.put(worldName, size);
+        return size++;
+    }
+
+    /**
+     * @param id World id from {@link #idOf(String)}
+     * @return the world name
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return number of distinct world names seen
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
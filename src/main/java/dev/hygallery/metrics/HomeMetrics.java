@@ -0,0 +1,138 @@
+package dev.hygallery.metrics;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Plugin-wide counters, latency histograms and gauges. Everything on the recording side is
+ * lock-free; histograms and counters are looked up once by their owners and then kept.
+ */
+public final class HomeMetrics {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * @param name Metric name, e.g. "command.home"
+     * @return the histogram with that name, created on first use
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * @param name Metric name, e.g. "transfer.success"
+     * @return the counter with that name, created on first use
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * Register a value that is read whenever metrics are reported. Should be cheap enough for /homestats.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Latency of one command from the moment it is executed until its future completes.
+     * @param command Command name without the slash
+     */
+    public LatencyHistogram command(String command) {
+        return histogram("command." + command);
+    }
+
+    /**
+     * @return time spent running plugin tasks on world threads
+     */
+    public LatencyHistogram worldTask() {
+        return histogram("world.task");
+    }
+
+    /**
+     * Wrap a task so its run time on the world executor is recorded.
+     */
+    public Runnable onWorldThread(Runnable task) {
+        LatencyHistogram worldTask = worldTask();
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                worldTask.recordSince(start);
+            }
+        };
+    }
+
+    /**
+     * @return human-readable lines, one per metric, sorted by name
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        long uptimeSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startedAt);
+        lines.add("uptime: " + uptimeSeconds + "s");
+
+        histograms.forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                lines.add(name + ": n=" + histogram.getCount() +
+                        " mean=" + formatNanos(histogram.getMeanNanos()) +
+                        " p50=" + formatNanos(histogram.getPercentileNanos(0.5)) +
+                        " p99=" + formatNanos(histogram.getPercentileNanos(0.99)) +
+                        " max=" + formatNanos(histogram.getMaxNanos()));
+            }
+        });
+        counters.forEach((name, counter) -> lines.add(name + ": " + counter.sum()));
+        new ConcurrentSkipListMap<>(gauges).forEach((name, gauge) -> lines.add(name + ": " + gauge.getAsLong()));
+        return lines;
+    }
+
+    /**
+     * Write {@link #report()} to a file, replacing it in one move so readers never see half a dump.
+     */
+    public void dump(File target) {
+        File tempFile = new File(target.getPath() + ".tmp");
+        StringBuilder text = new StringBuilder("# OpenHomes metrics at ").append(Instant.now()).append('\n');
+        for (String line : report()) {
+            text.append(line).append('\n');
+        }
+
+        try {
+            Files.writeString(tempFile.toPath(), text);
+            Files.move(tempFile.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Error writing metrics to " + target.getAbsolutePath());
+        }
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.2fs", nanos / 1_000_000_000.0);
+    }
+}
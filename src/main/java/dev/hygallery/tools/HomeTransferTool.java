@@ -0,0 +1,94 @@
+package dev.hygallery.tools;
+
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.data.ConflictPolicy;
+import dev.hygallery.data.DataHandler;
+import dev.hygallery.data.HomeFormat;
+import dev.hygallery.data.ImportResult;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Offline import and export against a plugin data folder, for migrations while the server is stopped.
+ * <pre>
+ * java -cp OpenHomes.jar:HytaleServer.jar dev.hygallery.tools.HomeTransferTool import|export FILE
+ *      [--format json|csv|ndjson] [--policy skip|overwrite|rename] [--data plugins/openhomes]
+ * </pre>
+ * Uses the storage backend set in the folder's config.json. Never run it on a folder a running
+ * server is using.
+ */
+public final class HomeTransferTool {
+
+    private HomeTransferTool() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("import") || args[0].equals("export"))) {
+            usage("");
+            return;
+        }
+
+        File file = new File(args[1]);
+        File dataFolder = new File("plugins/openhomes");
+        HomeFormat format = HomeFormat.of(file);
+        ConflictPolicy policy = ConflictPolicy.SKIP;
+
+        for (int i = 2; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                usage("Missing value for " + args[i]);
+                return;
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--format":
+                    format = HomeFormat.parse(value);
+                    break;
+                case "--policy":
+                    policy = ConflictPolicy.parse(value);
+                    break;
+                case "--data":
+                    dataFolder = new File(value);
+                    break;
+                default:
+                    usage("Unknown option " + args[i - 1]);
+                    return;
+            }
+        }
+        if (format == null || policy == null) {
+            usage("Unknown format or policy");
+            return;
+        }
+
+        DataHandler dataHandler = new DataHandler(PluginConfig.load(dataFolder), dataFolder);
+        int status = 0;
+        try {
+            if (args[0].equals("import")) {
+                ImportResult result = dataHandler.importHomes(file, format, policy, (homes, percent) ->
+                        System.out.println("Import " + percent + "%, " + homes + " homes"));
+                System.out.println("Import finished: " + result);
+            } else {
+                int players = dataHandler.exportHomes(file, format, (homes, percent) ->
+                        System.out.println("Exported " + homes + " homes so far..."));
+                System.out.println("Exported homes for " + players + " players to " + file.getPath());
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + args[0] + " failed, " + e.getMessage());
+            status = 1;
+        } finally {
+            dataHandler.shutdown();
+        }
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    private static void usage(String error) {
+        if (!error.isEmpty()) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: HomeTransferTool import|export FILE [--format json|csv|ndjson] " +
+                "[--policy skip|overwrite|rename] [--data plugins/openhomes]");
+        System.exit(2);
+    }
+}
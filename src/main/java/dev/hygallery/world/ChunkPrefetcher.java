@@ -0,0 +1,101 @@
+package dev.hygallery.world;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+import dev.hygallery.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads the chunks around a teleport target before the player arrives, so the world thread
+ * does not stall loading or generating them right after the teleport.
+ */
+public class ChunkPrefetcher {
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    private final boolean enabled;
+    private final int radius;
+    private final long timeoutMillis;
+    private final LatencyHistogram waitTime;
+    private final LongAdder alreadyLoaded;
+    private final LongAdder timeouts;
+    private final LongAdder failures;
+    private final LongAdder savedNanos = new LongAdder();
+
+    public ChunkPrefetcher(PluginConfig config, HomeMetrics metrics) {
+        this.enabled = config.isPrefetchChunks();
+        this.radius = config.getPrefetchRadius();
+        this.timeoutMillis = config.getPrefetchTimeoutMillis();
+        this.waitTime = metrics.histogram("prefetch.wait");
+        this.alreadyLoaded = metrics.counter("prefetch.alreadyLoaded");
+        this.timeouts = metrics.counter("prefetch.timeouts");
+        this.failures = metrics.counter("prefetch.failures");
+        // Load time moved off the world thread, i.e. the stall players would otherwise have hit
+        metrics.gauge("prefetch.savedMs", () -> TimeUnit.NANOSECONDS.toMillis(savedNanos.sum()));
+    }
+
+    /**
+     * {@link #prefetch} from another world's thread, hopping onto the target world to start the loads.
+     */
+    public CompletableFuture<Void> prefetchRemote(World world, double x, double z) {
+        if (!enabled) {
+            return READY;
+        }
+        return CompletableFuture.supplyAsync(() -> prefetch(world, x, z), world)
+                .thenCompose(ready -> ready);
+    }
+
+    /**
+     * Start loading the target chunk and its neighbours. Call on the target world's thread.
+     * @param world World the player is going to
+     * @param x Target block x
+     * @param z Target block z
+     * @return future completed once the chunks are loaded or the timeout has passed, never exceptionally
+     */
+    public CompletableFuture<Void> prefetch(World world, double x, double z) {
+        if (!enabled) {
+            return READY;
+        }
+
+        long start = System.nanoTime();
+        int centerX = ChunkUtil.chunkCoordinate(x);
+        int centerZ = ChunkUtil.chunkCoordinate(z);
+        List<CompletableFuture<?>> loads = new ArrayList<>();
+        for (int chunkX = centerX - radius; chunkX <= centerX + radius; chunkX++) {
+            for (int chunkZ = centerZ - radius; chunkZ <= centerZ + radius; chunkZ++) {
+                long index = ChunkUtil.indexChunk(chunkX, chunkZ);
+                if (world.getChunkIfLoaded(index) == null) {
+                    loads.add(world.getChunkAsync(index));
+                }
+            }
+        }
+
+        if (loads.isEmpty()) {
+            alreadyLoaded.increment();
+            return READY;
+        }
+
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    waitTime.record(elapsed);
+                    if (error == null) {
+                        savedNanos.add(elapsed);
+                    } else if (error instanceof TimeoutException || error.getCause() instanceof TimeoutException) {
+                        timeouts.increment();
+                    } else {
+                        failures.increment();
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,121 @@
+package dev.hygallery.world;
+
+import java.util.UUID;
+
+/**
+ * Player UUID to a long, kept in parallel primitive arrays with linear probing instead of boxed
+ * map entries. Removing shifts the following entries back, so the table never fills with
+ * tombstones however many players come and go.
+ */
+final class CooldownMap {
+
+    private long[] most = new long[64];
+    private long[] least = new long[64];
+    private long[] values = new long[64];
+    private boolean[] used = new boolean[64];
+    private int size;
+
+    /**
+     * @return the player's value, or absent if they have none
+     */
+    synchronized long get(UUID player, long absent) {
+        int slot = find(player.getMostSignificantBits(), player.getLeastSignificantBits());
+        return slot < 0 ? absent : values[slot];
+    }
+
+    synchronized void put(UUID player, long value) {
+        long hi = player.getMostSignificantBits();
+        long lo = player.getLeastSignificantBits();
+        int slot = find(hi, lo);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if ((size + 1) * 2 > used.length) {
+            resize(used.length * 2);
+        }
+        insert(hi, lo, value);
+        size++;
+    }
+
+    /**
+     * Remove the player only if their value is still the expected one, so a newer value survives.
+     * @return true if removed
+     */
+    synchronized boolean remove(UUID player, long expected) {
+        int slot = find(player.getMostSignificantBits(), player.getLeastSignificantBits());
+        if (slot < 0 || values[slot] != expected) {
+            return false;
+        }
+        delete(slot);
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int find(long hi, long lo) {
+        int mask = used.length - 1;
+        for (int slot = index(hi, lo, mask); used[slot]; slot = (slot + 1) & mask) {
+            if (most[slot] == hi && least[slot] == lo) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long hi, long lo, long value) {
+        int mask = used.length - 1;
+        int slot = index(hi, lo, mask);
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        most[slot] = hi;
+        least[slot] = lo;
+        values[slot] = value;
+    }
+
+    private void delete(int slot) {
+        int mask = used.length - 1;
+        int hole = slot;
+        used[hole] = false;
+        size--;
+        for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = index(most[next], least[next], mask);
+            // Entries whose home slot lies cyclically after the hole are still reachable where they are
+            boolean reachable = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (reachable) {
+                continue;
+            }
+            used[hole] = true;
+            most[hole] = most[next];
+            least[hole] = least[next];
+            values[hole] = values[next];
+            used[next] = false;
+            hole = next;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldMost = most;
+        long[] oldLeast = least;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        most = new long[capacity];
+        least = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldMost[i], oldLeast[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int index(long hi, long lo, int mask) {
+        long hash = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
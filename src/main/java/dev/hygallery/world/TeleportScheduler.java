@@ -0,0 +1,200 @@
+package dev.hygallery.world;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+import dev.hygallery.metrics.LatencyHistogram;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for teleports. Requests are queued per target world and each world starts at
+ * most a fixed number of teleports per tick, so a burst of /home after a restart is spread over
+ * several ticks instead of landing in one.
+ * <p>
+ * A player has at most one queued request. Asking again replaces it, keeping the place in line
+ * when the target world is the same.
+ */
+public class TeleportScheduler {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final class Request {
+        final UUID player;
+        final World source;
+        final Supplier<CompletableFuture<Void>> teleport;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Request(UUID player, World source, Supplier<CompletableFuture<Void>> teleport) {
+            this.player = player;
+            this.source = source;
+            this.teleport = teleport;
+        }
+    }
+
+    private static final class WorldQueue {
+        // Insertion order is queue order, replacing a player's request keeps their position
+        final LinkedHashMap<UUID, Request> requests = new LinkedHashMap<>();
+        int startedThisTick;
+    }
+
+    private final int budgetPerTick;
+    private final Object lock = new Object();
+    private final Map<String, WorldQueue> queues = new HashMap<>();
+    // Player -> target world name of their queued request
+    private final Map<UUID, String> queuedTargets = new HashMap<>();
+    private final ScheduledExecutorService ticker;
+
+    private final LatencyHistogram queueWait;
+    private final LongAdder merged;
+
+    public TeleportScheduler(PluginConfig config, HomeMetrics metrics) {
+        this.budgetPerTick = config.getTeleportsPerTick();
+        this.queueWait = metrics.histogram("teleport.queueWait");
+        this.merged = metrics.counter("teleport.merged");
+        metrics.gauge("teleport.queued", this::getQueuedCount);
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OpenHomes-Teleports");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = config.getTeleportTickMillis();
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a teleport. It starts right away if the target world has budget left this tick and
+     * nobody is waiting, otherwise on a later tick.
+     * @param player Player being teleported
+     * @param source World the player is in now, the teleport runs on its thread
+     * @param target World the player is going to
+     * @param teleport Starts the teleport and returns a future for its completion
+     * @param position Told the player's 1-based place in line if the request has to wait
+     * @return future completed when the teleport has finished, or when a newer request replaced this one
+     */
+    public CompletableFuture<Void> submit(UUID player, World source, World target,
+                                          Supplier<CompletableFuture<Void>> teleport, IntConsumer position) {
+        Request request = new Request(player, source, teleport);
+        Request replaced = null;
+        int place = 0;
+        boolean startNow = false;
+
+        synchronized (lock) {
+            String targetName = target.getName();
+            WorldQueue queue = queues.computeIfAbsent(targetName, name -> new WorldQueue());
+
+            String previousTarget = queuedTargets.put(player, targetName);
+            if (previousTarget != null) {
+                WorldQueue previousQueue = queues.get(previousTarget);
+                if (previousTarget.equals(targetName)) {
+                    replaced = queue.requests.put(player, request);
+                } else if (previousQueue != null) {
+                    replaced = previousQueue.requests.remove(player);
+                }
+            }
+
+            if (replaced == null || !previousTarget.equals(targetName)) {
+                if (queue.requests.isEmpty() && queue.startedThisTick < budgetPerTick) {
+                    queue.startedThisTick++;
+                    queuedTargets.remove(player);
+                    startNow = true;
+                } else {
+                    queue.requests.put(player, request);
+                }
+            }
+
+            if (!startNow) {
+                for (UUID queued : queue.requests.keySet()) {
+                    place++;
+                    if (queued.equals(player)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (replaced != null) {
+            merged.increment();
+            replaced.done.complete(null);
+        }
+        if (startNow) {
+            start(request);
+        } else {
+            position.accept(place);
+        }
+        return request.done;
+    }
+
+    /**
+     * @return number of teleports waiting across all worlds
+     */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return queuedTargets.size();
+        }
+    }
+
+    /**
+     * Stop ticking. Queued teleports are dropped and their futures completed.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+        List<Request> dropped = new ArrayList<>();
+        synchronized (lock) {
+            for (WorldQueue queue : queues.values()) {
+                dropped.addAll(queue.requests.values());
+                queue.requests.clear();
+            }
+            queuedTargets.clear();
+        }
+        for (Request request : dropped) {
+            request.done.complete(null);
+        }
+    }
+
+    private void tick() {
+        List<Request> starting = new ArrayList<>();
+        synchronized (lock) {
+            for (WorldQueue queue : queues.values()) {
+                queue.startedThisTick = 0;
+                Iterator<Request> it = queue.requests.values().iterator();
+                while (it.hasNext() && queue.startedThisTick < budgetPerTick) {
+                    Request request = it.next();
+                    it.remove();
+                    queuedTargets.remove(request.player);
+                    queue.startedThisTick++;
+                    starting.add(request);
+                }
+            }
+        }
+
+        for (Request request : starting) {
+            queueWait.recordSince(request.queuedAt);
+            start(request);
+        }
+    }
+
+    private void start(Request request) {
+        try {
+            request.source.execute(() -> {
+                try {
+                    request.teleport.get().whenComplete((ignored, error) -> request.done.complete(null));
+                } catch (RuntimeException e) {
+                    LOGGER.atSevere().withCause(e).log("Error running queued teleport for " + request.player);
+                    request.done.complete(null);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Source world is shutting down
+            LOGGER.atWarning().withCause(e).log("Could not run queued teleport for " + request.player);
+            request.done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package dev.hygallery.world;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hygallery.config.PluginConfig;
+import dev.hygallery.metrics.HomeMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teleport warmups and cooldowns for every player, driven by one {@link HashedWheelTimer}.
+ * <p>
+ * A warmup is cancelled when the player moves. Rather than a task per player, one check per tick
+ * groups the pending warmups by world and each world compares their positions in a single task on
+ * its own thread. Cooldowns are deadlines in a {@link CooldownMap}, removed by the timer once they pass.
+ */
+public class TeleportTimers {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    // Blocks a player may drift during a warmup, squared
+    private static final double MOVE_TOLERANCE_SQUARED = 0.5 * 0.5;
+
+    private static final class Warmup {
+        final UUID player;
+        final Ref<EntityStore> ref;
+        final Store<EntityStore> store;
+        final World world;
+        final double x;
+        final double y;
+        final double z;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        volatile HashedWheelTimer.Timeout deadline;
+
+        Warmup(UUID player, Ref<EntityStore> ref, Store<EntityStore> store, World world, Vector3d position) {
+            this.player = player;
+            this.ref = ref;
+            this.store = store;
+            this.world = world;
+            this.x = position.x;
+            this.y = position.y;
+            this.z = position.z;
+        }
+    }
+
+    private final PluginConfig config;
+    private final long tickMillis;
+    private final HashedWheelTimer timer;
+    private final Map<UUID, Warmup> warmups = new ConcurrentHashMap<>();
+    // Worlds with a movement check queued on their thread, so a lagging world gets one at a time
+    private final Set<World> checking = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean checkScheduled = new AtomicBoolean();
+    private final CooldownMap cooldowns = new CooldownMap();
+
+    private final LongAdder completed;
+    private final LongAdder cancelled;
+
+    public TeleportTimers(PluginConfig config, HomeMetrics metrics) {
+        this.config = config;
+        this.tickMillis = config.getTeleportTickMillis();
+        this.timer = new HashedWheelTimer("OpenHomes-Timer", tickMillis, 512);
+        this.completed = metrics.counter("warmup.completed");
+        this.cancelled = metrics.counter("warmup.cancelled");
+        metrics.gauge("warmup.pending", warmups::size);
+        metrics.gauge("cooldown.players", cooldowns::size);
+    }
+
+    /**
+     * @return warmup for the sender, the shortest of the default and any permission they hold
+     */
+    public long getWarmupMillis(CommandSender sender) {
+        return TimeUnit.SECONDS.toMillis(shortest(sender, config.getWarmupSeconds(), config.getWarmupPermissions()));
+    }
+
+    /**
+     * @return cooldown for the sender, the shortest of the default and any permission they hold
+     */
+    public long getCooldownMillis(CommandSender sender) {
+        return TimeUnit.SECONDS.toMillis(shortest(sender, config.getCooldownSeconds(), config.getCooldownPermissions()));
+    }
+
+    private static int shortest(CommandSender sender, int seconds, Map<String, Integer> permissions) {
+        int shortest = seconds;
+        for (Map.Entry<String, Integer> entry : permissions.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() < shortest && sender.hasPermission(entry.getKey())) {
+                shortest = Math.max(0, entry.getValue());
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * @return milliseconds until the player may teleport again, 0 if they may now
+     */
+    public long getCooldownRemainingMillis(UUID player) {
+        long until = cooldowns.get(player, Long.MIN_VALUE);
+        if (until == Long.MIN_VALUE) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(until - System.nanoTime()));
+    }
+
+    /**
+     * Start the player's cooldown, replacing any running one.
+     */
+    public void startCooldown(UUID player, long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        cooldowns.put(player, until);
+        timer.schedule(() -> cooldowns.remove(player, until), millis);
+    }
+
+    /**
+     * Wait for the player to stand still for the given time. Call on the player's world thread; the
+     * future completes on it too. A newer warmup for the same player cancels this one.
+     * @return future completed with true once the warmup has passed, false if it was cancelled
+     */
+    public CompletableFuture<Boolean> warmUp(UUID player, Ref<EntityStore> ref, Store<EntityStore> store, World world,
+                                             long millis) {
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+        if (millis <= 0 || transform == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        Warmup warmup = new Warmup(player, ref, store, world, transform.getPosition());
+        warmup.deadline = timer.schedule(() -> onWorld(warmup.world, () -> finish(warmup)), millis);
+        Warmup replaced = warmups.put(player, warmup);
+        if (replaced != null) {
+            cancel(replaced);
+        }
+        scheduleCheck();
+        return warmup.result;
+    }
+
+    /**
+     * Stop the timer and cancel every pending warmup.
+     */
+    public void shutdown() {
+        timer.stop();
+        for (Warmup warmup : new ArrayList<>(warmups.values())) {
+            if (warmups.remove(warmup.player, warmup)) {
+                warmup.result.complete(false);
+            }
+        }
+    }
+
+    private void finish(Warmup warmup) {
+        if (!warmups.remove(warmup.player, warmup)) {
+            return;
+        }
+        // The last per-tick check may be almost a tick old
+        if (moved(warmup)) {
+            cancelled.increment();
+            warmup.result.complete(false);
+        } else {
+            completed.increment();
+            warmup.result.complete(true);
+        }
+    }
+
+    private void cancel(Warmup warmup) {
+        warmup.deadline.cancel();
+        cancelled.increment();
+        // Completes on whichever thread replaced it, callers only send a message
+        warmup.result.complete(false);
+    }
+
+    private void scheduleCheck() {
+        if (checkScheduled.compareAndSet(false, true)) {
+            timer.schedule(this::checkMovement, tickMillis);
+        }
+    }
+
+    /**
+     * Runs on the timer thread once per tick while warmups are pending and hands each world
+     * its own warmups to check in one task.
+     */
+    private void checkMovement() {
+        checkScheduled.set(false);
+        if (warmups.isEmpty()) {
+            return;
+        }
+
+        Map<World, List<Warmup>> byWorld = new HashMap<>();
+        for (Warmup warmup : warmups.values()) {
+            byWorld.computeIfAbsent(warmup.world, world -> new ArrayList<>()).add(warmup);
+        }
+        byWorld.forEach((world, batch) -> {
+            if (checking.add(world)) {
+                onWorld(world, () -> {
+                    try {
+                        checkBatch(batch);
+                    } finally {
+                        checking.remove(world);
+                    }
+                });
+            }
+        });
+        scheduleCheck();
+    }
+
+    private void checkBatch(List<Warmup> batch) {
+        for (Warmup warmup : batch) {
+            if (warmups.get(warmup.player) == warmup && moved(warmup) && warmups.remove(warmup.player, warmup)) {
+                warmup.deadline.cancel();
+                cancelled.increment();
+                warmup.result.complete(false);
+            }
+        }
+    }
+
+    /**
+     * @return true if the player left their warmup spot or is no longer in the world. World thread only.
+     */
+    private static boolean moved(Warmup warmup) {
+        if (!warmup.ref.isValid()) {
+            return true;
+        }
+        TransformComponent transform = warmup.store.getComponent(warmup.ref, TransformComponent.getComponentType());
+        if (transform == null) {
+            return true;
+        }
+        Vector3d position = transform.getPosition();
+        double dx = position.x - warmup.x;
+        double dy = position.y - warmup.y;
+        double dz = position.z - warmup.z;
+        return dx * dx + dy * dy + dz * dz > MOVE_TOLERANCE_SQUARED;
+    }
+
+    private void onWorld(World world, Runnable task) {
+        try {
+            world.execute(task);
+        } catch (RuntimeException e) {
+            // World is shutting down, its warmups can never finish
+            LOGGER.atWarning().withCause(e).log("Could not run teleport timer task on " + world.getName());
+            checking.remove(world);
+            for (Warmup warmup : new ArrayList<>(warmups.values())) {
+                if (warmup.world == world && warmups.remove(warmup.player, warmup)) {
+                    warmup.deadline.cancel();
+                    warmup.result.complete(false);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.hygallery.world;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name to {@link World} index, kept current by world add/remove events instead of scanning
+ * {@link Universe#getWorlds()} on every lookup.
+ * <p>
+ * Names that resolve to nothing are remembered for a short while, so homes in deleted worlds
+ * fail immediately. A miss falls back to one scan of the universe, which also covers worlds
+ * that loaded before the plugin started listening.
+ */
+public class WorldDirectory {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long MISSING_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Map<String, World> worlds = new ConcurrentHashMap<>();
+    // World name -> System.nanoTime() until which it is known not to exist
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> instances = new ConcurrentHashMap<>();
+
+    /**
+     * @param name World name as stored with a home
+     * @return the loaded world, or null if no world has that name
+     */
+    public World resolve(String name) {
+        World world = worlds.get(name);
+        if (world != null) {
+            return world;
+        }
+
+        Long missingUntil = missing.get(name);
+        if (missingUntil != null && missingUntil - System.nanoTime() > 0) {
+            return null;
+        }
+
+        world = scan(name);
+        if (world == null) {
+            missing.put(name, System.nanoTime() + MISSING_TTL_NANOS);
+        }
+        return world;
+    }
+
+    /**
+     * @return true if the world is a temporary instance where homes should not be set
+     */
+    public boolean isInstance(World world) {
+        return instances.computeIfAbsent(world.getName(), name -> name.toLowerCase().contains("instance"));
+    }
+
+    /**
+     * Called when a world is added to the universe.
+     */
+    public void worldAdded(World world) {
+        String name = world.getName();
+        worlds.put(name, world);
+        missing.remove(name);
+        LOGGER.atInfo().log("Indexed world '" + name + "'");
+    }
+
+    /**
+     * Called when a world is removed from the universe. Lookups fail fast until it comes back.
+     */
+    public void worldRemoved(World world) {
+        String name = world.getName();
+        worlds.remove(name, world);
+        instances.remove(name);
+        missing.put(name, System.nanoTime() + MISSING_TTL_NANOS);
+        LOGGER.atInfo().log("Removed world '" + name + "' from the index");
+    }
+
+    /**
+     * @return number of indexed worlds
+     */
+    public int size() {
+        return worlds.size();
+    }
+
+    /**
+     * Index every world the universe currently has and return the one with the given name.
+     */
+    private World scan(String name) {
+        World found = null;
+        for (World world : Universe.get().getWorlds().values()) {
+            worlds.putIfAbsent(world.getName(), world);
+            if (world.getName().equals(name)) {
+                found = world;
+            }
+        }
+        return found;
+    }
+}